@@ -0,0 +1,49 @@
+// Нагрузочный сценарий k6: одновременное скачивание больших файлов.
+// Сравнение режимов: запустить приложение обычным образом и с профилем virtual-threads
+// (mvn -Pvirtual-threads spring-boot:run), затем в обоих случаях выполнить
+//   k6 run -e BASE_URL=http://localhost:8080 -e FILE_ID=<id файла> -e VUS=400 load/download-concurrency.js
+// и сравнить http_reqs, http_req_duration и долю ошибок. Для проверки, что запросы
+// к API не ждут освобождения потоков, параллельно идет поток коротких запросов списка.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const FILE_ID = __ENV.FILE_ID;
+const VUS = parseInt(__ENV.VUS || '400');
+const DURATION = __ENV.DURATION || '1m';
+
+export const options = {
+    scenarios: {
+        downloads: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: DURATION,
+            exec: 'download',
+        },
+        listing: {
+            executor: 'constant-arrival-rate',
+            rate: 50,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 50,
+            exec: 'list',
+        },
+    },
+    thresholds: {
+        'http_req_failed': ['rate<0.01'],
+        'http_req_duration{scenario:listing}': ['p(95)<500'],
+    },
+};
+
+export function download() {
+    const response = http.get(`${BASE_URL}/api/files/${FILE_ID}`, {
+        responseType: 'none',
+        timeout: '5m',
+    });
+    check(response, { 'download status is 200': r => r.status === 200 });
+}
+
+export function list() {
+    const response = http.get(`${BASE_URL}/api/files?limit=50`);
+    check(response, { 'list status is 200': r => r.status === 200 });
+}
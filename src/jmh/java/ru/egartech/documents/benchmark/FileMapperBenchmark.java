@@ -0,0 +1,39 @@
+package ru.egartech.documents.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.egartech.documents.dto.FileResponseDto;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.service.mapper.FileMapper;
+import ru.egartech.documents.service.mapper.FileMapperImpl;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileMapperBenchmark {
+    private final FileMapper fileMapper = new FileMapperImpl();
+    private FileEntity file;
+
+    @Setup
+    public void setUp() {
+        file = new FileEntity();
+        file.setId(UUID.randomUUID());
+        file.setName("Договор поставки №125.docx");
+        file.setSize(184_320L);
+        file.setContentType("Microsoft Word Document 2007");
+        file.setDescription("Подписанный экземпляр договора");
+        file.setLastModified(LocalDateTime.of(2024, 5, 17, 14, 30));
+        file.setContentId(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public FileResponseDto toFileResponseDto() {
+        return fileMapper.toFileResponseDto(file);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.egartech.documents.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.egartech.documents.utils.FileNameUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает проверку имени через String.matches (регулярное выражение компилируется
+ * при каждом вызове, так было в FileService) с предкомпилированным шаблоном FileNameUtil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameBenchmark {
+    private static final String REGEX = "^[^<>:\"/\\\\|?*;]+$";
+
+    @Param({"report.docx", "Статистика файлов за период: 01.01.2024 - 31.12.2024.docx", "bad|name.txt"})
+    public String fileName;
+
+    @Benchmark
+    public boolean stringMatches() {
+        return fileName.matches(REGEX);
+    }
+
+    @Benchmark
+    public boolean precompiledPattern() {
+        return FileNameUtil.isValid(fileName);
+    }
+}
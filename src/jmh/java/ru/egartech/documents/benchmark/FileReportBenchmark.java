@@ -0,0 +1,52 @@
+package ru.egartech.documents.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.utils.FileReportWriter;
+import ru.egartech.documents.utils.ReportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построчная выгрузка файлов за период: в отличие от docx со статистикой,
+ * ее стоимость растет с числом файлов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileReportBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int files;
+
+    @Param({"CSV", "XLSX"})
+    public ReportFormat format;
+
+    private FileEntity file;
+
+    @Setup
+    public void setUp() {
+        file = new FileEntity();
+        file.setId(UUID.randomUUID());
+        file.setName("Счет-фактура, \"исправленная\".pdf");
+        file.setSize(512_000L);
+        file.setContentType("PDF Document");
+        file.setDescription("Выгружено из бухгалтерии");
+        file.setLastModified(LocalDateTime.of(2024, 5, 17, 14, 30));
+    }
+
+    @Benchmark
+    public void writeReport() throws IOException {
+        try (FileReportWriter writer = format.newWriter(OutputStream.nullOutputStream())) {
+            for (int i = 0; i < files; i++) {
+                writer.write(file);
+            }
+        }
+    }
+}
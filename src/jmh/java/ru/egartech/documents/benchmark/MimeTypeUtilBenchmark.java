@@ -0,0 +1,26 @@
+package ru.egartech.documents.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.egartech.documents.utils.MimeTypeUtil;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MimeTypeUtilBenchmark {
+    @Param({
+            "application/pdf",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/x-unknown-type"
+    })
+    public String mimeType;
+
+    @Benchmark
+    public String getReadableMimeType() {
+        return MimeTypeUtil.getReadableMimeType(mimeType);
+    }
+}
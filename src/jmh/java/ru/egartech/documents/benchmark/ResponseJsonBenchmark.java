@@ -0,0 +1,54 @@
+package ru.egartech.documents.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.egartech.documents.dto.FileResponseDto;
+import ru.egartech.documents.exceptions.baseresponse.ResponseWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответа со страницей файлов тем же ObjectMapper, что строит Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseJsonBenchmark {
+    @Param({"50", "500", "5000"})
+    public int files;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private ResponseWrapper<List<FileResponseDto>> response;
+
+    @Setup
+    public void setUp() {
+        List<FileResponseDto> items = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            items.add(FileResponseDto.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name("Документ " + i + ".docx")
+                    .size(10_000L + i)
+                    .contentType("Microsoft Word Document 2007")
+                    .description("Описание документа " + i)
+                    .lastModified("14:30 17.05.2024")
+                    .build());
+        }
+        response = ResponseWrapper.<List<FileResponseDto>>builder()
+                .success(true)
+                .body(items)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.egartech.documents.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.egartech.documents.dto.ContentTypeStatisticDto;
+import ru.egartech.documents.dto.FileStatisticDto;
+import ru.egartech.documents.utils.StatisticCreator;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирование docx со статистикой. Документ строится по сводке file_statistics,
+ * поэтому от числа файлов зависят только итоговые суммы, а объем работы задает
+ * количество типов (строк таблицы).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticCreatorBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public long files;
+
+    @Param({"10", "100", "1000"})
+    public int types;
+
+    private FileStatisticDto statistic;
+
+    @Setup
+    public void setUp() {
+        List<ContentTypeStatisticDto> typeStatistics = new ArrayList<>(types);
+        long totalSize = 0;
+        for (int i = 0; i < types; i++) {
+            long typeFiles = files / types + (i < files % types ? 1 : 0);
+            long typeSize = typeFiles * 250_000L;
+            totalSize += typeSize;
+            typeStatistics.add(ContentTypeStatisticDto.builder()
+                    .contentType("Content Type " + i)
+                    .files(typeFiles)
+                    .totalSize(typeSize)
+                    .build());
+        }
+        statistic = FileStatisticDto.builder()
+                .periodStart(LocalDate.of(2024, 1, 1))
+                .periodEnd(LocalDate.of(2024, 12, 31))
+                .totalFiles(files)
+                .totalSize(totalSize)
+                .lastModified(LocalDateTime.of(2024, 12, 30, 18, 0))
+                .types(typeStatistics)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] createStatistic() {
+        return new StatisticCreator().createStatistic(statistic);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.egartech.documents.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Кэши метаданных файлов. Менеджер обернут в транзакционный прокси: инвалидация,
+ * вызванная внутри транзакции, выполняется только после ее коммита, иначе
+ * параллельный запрос успел бы снова закэшировать старые данные.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+    public static final String FILES_CACHE = "files";
+    public static final String FILE_PAGES_CACHE = "filePages";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(FILES_CACHE, build(cacheProperties.getFiles()));
+        cacheManager.registerCustomCache(FILE_PAGES_CACHE, build(cacheProperties.getFilePages()));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> build(CacheProperties.Spec spec) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+    }
+}
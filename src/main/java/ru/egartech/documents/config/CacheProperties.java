@@ -0,0 +1,47 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.cache")
+public class CacheProperties {
+    private Spec files = new Spec(10_000, Duration.ofMinutes(10));
+
+    private Spec filePages = new Spec(500, Duration.ofMinutes(1));
+
+    private Content content = new Content();
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private long maximumSize;
+
+        private Duration ttl;
+
+        public Spec() {
+        }
+
+        public Spec(long maximumSize, Duration ttl) {
+            this.maximumSize = maximumSize;
+            this.ttl = ttl;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Content {
+        private boolean enabled = true;
+
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+        private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+        private Duration ttl = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.egartech.documents.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableConfigurationProperties(ExtractionProperties.class)
+public class ExtractionConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor textExtractionExecutor(ExtractionProperties extractionProperties, Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(extractionProperties.getThreads());
+        executor.setMaxPoolSize(extractionProperties.getThreads());
+        executor.setQueueCapacity(extractionProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("text-extraction-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("text-extraction-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+}
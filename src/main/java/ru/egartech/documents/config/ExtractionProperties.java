@@ -0,0 +1,19 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.extraction")
+public class ExtractionProperties {
+    private int threads = 2;
+
+    private int queueCapacity = 1000;
+
+    private int maxTextLength = 200_000;
+
+    private DataSize maxOfficeSize = DataSize.ofMegabytes(20);
+}
@@ -0,0 +1,22 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.reactive")
+public class ReactiveProperties {
+    private boolean enabled = false;
+
+    private int port = 8081;
+
+    /**
+     * Число потоков цикла событий Netty, 0 - по числу процессоров.
+     */
+    private int eventLoopThreads = 0;
+
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+}
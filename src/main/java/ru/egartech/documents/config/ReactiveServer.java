@@ -0,0 +1,55 @@
+package ru.egartech.documents.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Отдельный сервер Reactor Netty для реактивного API передачи содержимого. Основное
+ * приложение остается на Spring MVC и Tomcat, поэтому реактивные маршруты слушают свой порт.
+ */
+@Slf4j
+public class ReactiveServer implements SmartLifecycle {
+    private final HttpHandler httpHandler;
+    private final ReactiveProperties reactiveProperties;
+    private volatile DisposableServer server;
+    private LoopResources loopResources;
+
+    public ReactiveServer(HttpHandler httpHandler, ReactiveProperties reactiveProperties) {
+        this.httpHandler = httpHandler;
+        this.reactiveProperties = reactiveProperties;
+    }
+
+    @Override
+    public void start() {
+        HttpServer httpServer = HttpServer.create().port(reactiveProperties.getPort());
+        if (reactiveProperties.getEventLoopThreads() > 0) {
+            loopResources = LoopResources.create("reactive-http", reactiveProperties.getEventLoopThreads(), true);
+            httpServer = httpServer.runOn(loopResources);
+        }
+        server = httpServer.handle(new ReactorHttpHandlerAdapter(httpHandler)).bindNow();
+        log.info("Reactive content API started on port {}", server.port());
+    }
+
+    @Override
+    public void stop() {
+        DisposableServer current = server;
+        server = null;
+        if (current != null) {
+            current.disposeNow();
+        }
+        if (loopResources != null) {
+            loopResources.disposeLater().block();
+            loopResources = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
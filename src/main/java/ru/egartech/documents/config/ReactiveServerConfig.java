@@ -0,0 +1,72 @@
+package ru.egartech.documents.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import ru.egartech.documents.controller.ReactiveFileHandler;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.exceptions.ExceptionApiHandler;
+import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
+import ru.egartech.documents.service.FileDownloadService;
+import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.service.monitoring.DocumentsMetrics;
+import ru.egartech.documents.service.storage.ContentService;
+
+@Configuration
+@EnableConfigurationProperties(ReactiveProperties.class)
+@ConditionalOnProperty(prefix = "documents.reactive", name = "enabled", havingValue = "true")
+public class ReactiveServerConfig {
+
+    @Bean
+    public ReactiveFileHandler reactiveFileHandler(FileDownloadService fileDownloadService,
+                                                   FileService fileService,
+                                                   ContentService contentService,
+                                                   DocumentsMetrics documentsMetrics,
+                                                   UploadProperties uploadProperties,
+                                                   ReactiveProperties reactiveProperties,
+                                                   BaseResponseService baseResponseService) {
+        return new ReactiveFileHandler(fileDownloadService, fileService, contentService, documentsMetrics,
+                baseResponseService, uploadProperties.getStagingDir(), uploadProperties.getMaxFileSize().toBytes(),
+                (int) reactiveProperties.getBufferSize().toBytes());
+    }
+
+    @Bean
+    public ReactiveServer reactiveServer(ReactiveFileHandler handler,
+                                         ReactiveProperties reactiveProperties,
+                                         BaseResponseService baseResponseService,
+                                         ExceptionApiHandler exceptionApiHandler,
+                                         ObjectMapper objectMapper) {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/api/reactive/files/{id}", handler::download)
+                .POST("/api/reactive/files/upload", handler::upload)
+                .onError(DocumentsException.class, (e, request) -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(baseResponseService.wrapErrorResponse((DocumentsException) e)))
+                .onError(DataIntegrityViolationException.class, (e, request) -> ServerResponse.status(HttpStatus.CONFLICT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(exceptionApiHandler.handleDataIntegrityViolationException((DataIntegrityViolationException) e)))
+                .onError(IllegalArgumentException.class, (e, request) -> ServerResponse.badRequest()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(baseResponseService.wrapErrorResponse(new DocumentsException(ErrorType.CLIENT_ERROR, e))))
+                .build();
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        return new ReactiveServer(RouterFunctions.toHttpHandler(routes, strategies), reactiveProperties);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.egartech.documents.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Клиент видит собственные изменения, даже если реплики отстают: изменяющий запрос выполняется
+ * на основной базе и ставит cookie на documents.replicas.read-your-writes-window, а запросы
+ * с этим cookie читают с основной базы, пока он не истечет.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String COOKIE_NAME = "documents-recent-write";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            Cookie cookie = new Cookie(COOKIE_NAME, "1");
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+        }
+        if (!write && WebUtils.getCookie(request, COOKIE_NAME) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.primaryOnly()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
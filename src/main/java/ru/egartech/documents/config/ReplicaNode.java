@@ -0,0 +1,111 @@
+package ru.egartech.documents.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Реплика для чтения и ее состояние по последней проверке: доступность, отставание
+ * и позиция воспроизведенного журнала (WAL).
+ */
+@Slf4j
+class ReplicaNode {
+    private static final String CHECK_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                    "ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS bigint) END, " +
+                    "CAST(CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() " +
+                    "ELSE pg_current_wal_lsn() END AS text)";
+    private static final String REPLAY_LSN_SQL =
+            "SELECT CAST(CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() " +
+                    "ELSE pg_current_wal_lsn() END AS text)";
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private volatile boolean available;
+    private volatile long lagMillis;
+    private volatile long replayLsn;
+
+    ReplicaNode(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    long getLagMillis() {
+        return lagMillis;
+    }
+
+    boolean isUsable(Duration maxLag) {
+        return available && lagMillis <= maxLag.toMillis();
+    }
+
+    Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Воспроизвела ли реплика журнал до позиции lsn. Если по последней проверке нет,
+     * позиция уточняется запросом через уже полученное соединение.
+     */
+    boolean hasReplayed(long lsn, Connection connection) throws SQLException {
+        if (replayLsn >= lsn) {
+            return true;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(REPLAY_LSN_SQL)) {
+            rs.next();
+            replayLsn = Math.max(replayLsn, parseLsn(rs.getString(1)));
+        }
+        return replayLsn >= lsn;
+    }
+
+    void check() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(CHECK_SQL)) {
+            rs.next();
+            lagMillis = rs.getLong(1);
+            replayLsn = parseLsn(rs.getString(2));
+            if (!available) {
+                log.info("Replica {} is available, lag {} ms", name, lagMillis);
+            }
+            available = true;
+        } catch (SQLException | RuntimeException e) {
+            markUnavailable(e);
+        }
+    }
+
+    void markUnavailable(Exception cause) {
+        if (available) {
+            log.warn("Replica {} is unavailable, reading from primary: {}", name, cause.getMessage());
+        }
+        available = false;
+    }
+
+    void close() {
+        dataSource.close();
+    }
+
+    /**
+     * Позиция журнала PostgreSQL вида 16/B374D848 как беззнаковое 64-битное число.
+     */
+    static long parseLsn(String lsn) {
+        if (lsn == null) {
+            return 0;
+        }
+        int separator = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, separator), 16) << 32) | Long.parseLong(lsn.substring(separator + 1), 16);
+    }
+}
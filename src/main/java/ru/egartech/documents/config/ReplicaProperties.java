@@ -0,0 +1,44 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.replicas")
+public class ReplicaProperties {
+    private boolean enabled = false;
+
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Реплика, отставшая больше чем на max-lag, не используется до следующей проверки.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * Сколько после изменяющего запроса клиент читает с основной базы.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    private Duration checkInterval = Duration.ofSeconds(1);
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        /**
+         * Сколько ждать соединения с репликой, прежде чем читать с основной базы.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+    }
+}
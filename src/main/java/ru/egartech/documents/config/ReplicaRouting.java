@@ -0,0 +1,117 @@
+package ru.egartech.documents.config;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Подсказки маршрутизации для {@link ReplicaRoutingDataSource}. Транзакции только для чтения
+ * уходят на реплики без подсказок; {@link #readOnly()} отправляет туда же чтения вне транзакций
+ * (содержимое файлов), а {@link #primaryOnly()} оставляет все чтения на основной базе.
+ * Подсказка действует в текущем потоке до закрытия области; в другой поток ее переносят
+ * {@link #capture()} и {@link #propagate(Runnable)}.
+ */
+public final class ReplicaRouting {
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Чтения в области идут на одну и ту же реплику: содержимое, прочитанное по частям,
+     * не собирается из реплик с разным отставанием.
+     */
+    public static Scope readOnly() {
+        State current = STATE.get();
+        return open(new State(current != null && current.primaryOnly, true));
+    }
+
+    public static Scope primaryOnly() {
+        State current = STATE.get();
+        return open(new State(true, current != null && current.readOnly));
+    }
+
+    /**
+     * Запоминает подсказки текущего потока, чтобы продолжить работу с ними в другом потоке:
+     * тело асинхронного ответа или чтение содержимого по частям. Реплика, выбранная в области
+     * {@link #readOnly()}, остается общей для всех потоков, открывающих снимок.
+     */
+    public static Snapshot capture() {
+        return new Snapshot(STATE.get());
+    }
+
+    /**
+     * Оборачивает задачу так, что она выполняется с подсказками потока, который ее создал.
+     * Подходит как TaskDecorator исполнителей, которым задачи передаются из потока запроса.
+     */
+    public static Runnable propagate(Runnable task) {
+        Snapshot snapshot = capture();
+        return () -> {
+            try (Scope ignored = snapshot.open()) {
+                task.run();
+            }
+        };
+    }
+
+    static boolean isReadOnly() {
+        State state = STATE.get();
+        if (state != null && state.primaryOnly) {
+            return false;
+        }
+        return (state != null && state.readOnly) || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    static ReplicaNode pinnedReplica() {
+        State state = STATE.get();
+        return state != null ? state.pinned : null;
+    }
+
+    static void pin(ReplicaNode replica) {
+        State state = STATE.get();
+        if (state != null && state.readOnly) {
+            state.pinned = replica;
+        }
+    }
+
+    private static Scope open(State state) {
+        State previous = STATE.get();
+        if (state == null) {
+            STATE.remove();
+        } else {
+            STATE.set(state);
+        }
+        return () -> {
+            if (previous == null) {
+                STATE.remove();
+            } else {
+                STATE.set(previous);
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static final class Snapshot {
+        private final State state;
+
+        private Snapshot(State state) {
+            this.state = state;
+        }
+
+        public Scope open() {
+            return ReplicaRouting.open(state);
+        }
+    }
+
+    private static final class State {
+        private final boolean primaryOnly;
+        private final boolean readOnly;
+        private volatile ReplicaNode pinned;
+
+        private State(boolean primaryOnly, boolean readOnly) {
+            this.primaryOnly = primaryOnly;
+            this.readOnly = readOnly;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ru.egartech.documents.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выдает соединения основной базы или реплик. На реплику уходят только чтения
+ * ({@link ReplicaRouting#isReadOnly()}), реплики перебираются по кругу. Реплика пропускается,
+ * если она недоступна, отстает больше documents.replicas.max-lag или еще не воспроизвела
+ * последнее изменение, сделанное этим экземпляром: после фиксации транзакции, которая не помечена
+ * «только чтение», запоминается текущая позиция журнала основной базы. Изменения вне транзакций
+ * не отслеживаются, клиенту их показывает {@link ReadYourWritesFilter}. Если подходящей реплики нет,
+ * чтение выполняется на основной базе.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final String CURRENT_LSN_SQL = "SELECT CAST(pg_current_wal_lsn() AS text)";
+
+    private final DataSource primary;
+    private final List<ReplicaNode> replicas;
+    private final Duration maxLag;
+    private final Counter primaryFallbacks;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong lastWriteLsn = new AtomicLong();
+    private final TransactionSynchronization writeTracking = new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+            recordWriteLsn();
+        }
+    };
+
+    ReplicaRoutingDataSource(DataSource primary, List<ReplicaNode> replicas, Duration maxLag,
+                             MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+        this.primaryFallbacks = Counter.builder("documents.replicas.fallbacks")
+                .description("Чтения, выполненные на основной базе из-за недоступности или отставания реплик")
+                .register(meterRegistry);
+        for (ReplicaNode replica : replicas) {
+            Gauge.builder("documents.replicas.lag", replica, ReplicaNode::getLagMillis)
+                    .description("Отставание реплики по последней проверке")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("documents.replicas.available", replica, node -> node.isAvailable() ? 1 : 0)
+                    .description("Доступность реплики по последней проверке")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+        }
+        replicas.forEach(ReplicaNode::check);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReplicaRouting.isReadOnly()) {
+            trackWrites();
+            return primary.getConnection();
+        }
+        ReplicaNode pinned = ReplicaRouting.pinnedReplica();
+        if (pinned != null) {
+            try {
+                return pinned.getConnection();
+            } catch (SQLException e) {
+                pinned.markUnavailable(e);
+            }
+        } else {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${documents.replicas.check-interval:PT1S}")
+    public void checkReplicas() {
+        replicas.forEach(ReplicaNode::check);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(ReplicaNode::close);
+    }
+
+    private Connection replicaConnection() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        long requiredLsn = lastWriteLsn.get();
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaNode replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isUsable(maxLag)) {
+                continue;
+            }
+            Connection connection = null;
+            try {
+                connection = replica.getConnection();
+                if (replica.hasReplayed(requiredLsn, connection)) {
+                    ReplicaRouting.pin(replica);
+                    return connection;
+                }
+            } catch (SQLException e) {
+                replica.markUnavailable(e);
+            }
+            closeQuietly(connection);
+        }
+        return null;
+    }
+
+    /**
+     * Запоминает позицию журнала после фиксации текущей пишущей транзакции. Позиция читается
+     * отдельным соединением: соединение транзакции к этому моменту может быть уже возвращено в пул.
+     */
+    private void trackWrites() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || TransactionSynchronizationManager.getSynchronizations().contains(writeTracking)) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(writeTracking);
+    }
+
+    private void recordWriteLsn() {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(CURRENT_LSN_SQL)) {
+            rs.next();
+            lastWriteLsn.accumulateAndGet(ReplicaNode.parseLsn(rs.getString(1)), Math::max);
+        } catch (SQLException e) {
+            log.debug("Failed to read WAL position of primary: {}", e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close replica connection: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.egartech.documents.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReportProperties.class)
+public class ReportConfig {
+
+    /**
+     * С виртуальными потоками пул сохраняется: он по-прежнему ограничивает число одновременно
+     * формируемых отчетов и длину очереди, а поток-носитель освобождается на время ожидания JDBC.
+     * Задача выполняется с подсказками маршрутизации запроса, который ее поставил.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportExecutor(ReportProperties reportProperties, Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reportProperties.getThreads());
+        executor.setMaxPoolSize(reportProperties.getThreads());
+        executor.setQueueCapacity(reportProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("report-");
+        executor.setTaskDecorator(ReplicaRouting::propagate);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("report-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+}
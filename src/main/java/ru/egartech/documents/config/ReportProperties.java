@@ -0,0 +1,20 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.report")
+public class ReportProperties {
+    private int threads = 1;
+
+    private int queueCapacity = 20;
+
+    private Duration jobTtl = Duration.ofHours(1);
+
+    private Duration maxWait = Duration.ofSeconds(30);
+}
@@ -0,0 +1,33 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.retention")
+public class RetentionProperties {
+    /**
+     * Сколько месяцев хранить файлы после последнего изменения, считая текущий; 0 — хранить бессрочно.
+     */
+    private int retainMonths = 0;
+
+    private Action action = Action.ARCHIVE;
+
+    /**
+     * На сколько месяцев вперед заранее создавать секции таблицы files.
+     */
+    private int monthsAhead = 3;
+
+    public enum Action {
+        /**
+         * Отсоединить секцию и перенести ее в схему files_archive; содержимое файлов сохраняется.
+         */
+        ARCHIVE,
+        /**
+         * Удалить секцию и освободить содержимое, на которое больше не ссылается ни один файл.
+         */
+        DROP
+    }
+}
@@ -0,0 +1,131 @@
+package ru.egartech.documents.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.egartech.documents.service.storage.ContentMigrationService;
+import ru.egartech.documents.service.storage.ContentShard;
+import ru.egartech.documents.service.storage.ContentShards;
+import ru.egartech.documents.service.storage.ContentStore;
+import ru.egartech.documents.service.storage.DatabaseContentStore;
+import ru.egartech.documents.service.storage.FallbackContentStore;
+import ru.egartech.documents.service.storage.FileSystemContentStore;
+import ru.egartech.documents.service.storage.ShardRebalanceService;
+import ru.egartech.documents.service.storage.ShardedContentStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+    private static final String SHARD_MIGRATIONS = "classpath:db/shard";
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "filesystem")
+    public FileSystemContentStore fileSystemContentStore(StorageProperties storageProperties) {
+        return new FileSystemContentStore(storageProperties.getFilesystem().getRootDir());
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "filesystem")
+    public ContentStore contentStore(FileSystemContentStore fileSystemContentStore,
+                                     DatabaseContentStore databaseContentStore) {
+        return new FallbackContentStore(fileSystemContentStore, databaseContentStore);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "filesystem")
+    public ContentMigrationService fileSystemMigrationService(JdbcTemplate jdbcTemplate,
+                                                              DatabaseContentStore databaseContentStore,
+                                                              FileSystemContentStore fileSystemContentStore) {
+        return new ContentMigrationService(jdbcTemplate, databaseContentStore, fileSystemContentStore);
+    }
+
+    /**
+     * Пулы соединений баз содержимого. Схема каждой базы доводится миграциями из db/shard
+     * при старте; при остановке приложения пулы закрываются.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "sharded")
+    public ContentShards contentShards(StorageProperties storageProperties, MeterRegistry meterRegistry) {
+        List<ContentShard> shards = new ArrayList<>();
+        try {
+            List<StorageProperties.Shard> shardProperties = storageProperties.getShards();
+            for (int i = 0; i < shardProperties.size(); i++) {
+                shards.add(createShard("content-shard-" + i, shardProperties.get(i), meterRegistry));
+            }
+            return new ContentShards(shards);
+        } catch (RuntimeException e) {
+            shards.forEach(shard -> shard.dataSource().close());
+            throw e;
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "sharded")
+    public ShardedContentStore shardedContentStore(ContentShards contentShards) {
+        return new ShardedContentStore(contentShards);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "sharded")
+    public ContentStore shardedFallbackContentStore(ShardedContentStore shardedContentStore,
+                                                    DatabaseContentStore databaseContentStore) {
+        return new FallbackContentStore(shardedContentStore, databaseContentStore);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "sharded")
+    public ContentMigrationService shardMigrationService(JdbcTemplate jdbcTemplate,
+                                                         DatabaseContentStore databaseContentStore,
+                                                         ShardedContentStore shardedContentStore) {
+        return new ContentMigrationService(jdbcTemplate, databaseContentStore, shardedContentStore);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.storage", name = "type", havingValue = "sharded")
+    public ShardRebalanceService shardRebalanceService(ContentShards contentShards) {
+        return new ShardRebalanceService(contentShards);
+    }
+
+    private ContentShard createShard(String name, StorageProperties.Shard properties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        try {
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(SHARD_MIGRATIONS)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        return new ContentShard(name, dataSource, jdbcTemplate, new TransactionTemplate(transactionManager),
+                new DatabaseContentStore(jdbcTemplate, transactionManager));
+    }
+}
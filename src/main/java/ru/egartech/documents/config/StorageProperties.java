@@ -0,0 +1,70 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.storage")
+public class StorageProperties {
+    private Type type = Type.DATABASE;
+
+    private final FileSystem filesystem = new FileSystem();
+
+    /**
+     * Базы данных для содержимого при type: sharded. Распределяется только содержимое (по хешу
+     * contentId). Метаданные — files, file_names, file_texts, file_statistics — и все запросы
+     * {@code FileRepository} остаются в основной базе. Поэтому уникальность имени, списки,
+     * поиск и статистика работают без сбора результатов с нескольких баз, а основная база
+     * остается пределом по объему метаданных.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    private final LargeObjectGc largeObjectGc = new LargeObjectGc();
+
+    public enum Type {
+        DATABASE,
+        FILESYSTEM,
+        SHARDED
+    }
+
+    @Getter
+    @Setter
+    public static class FileSystem {
+        private Path rootDir = Path.of("storage");
+    }
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+
+    /**
+     * Сборка large object без ссылок из file_contents.
+     */
+    @Getter
+    @Setter
+    public static class LargeObjectGc {
+        private boolean enabled = true;
+        /**
+         * Только подсчитывать объекты без ссылок, не удаляя их.
+         */
+        private boolean dryRun = false;
+        private int batchSize = 500;
+        /**
+         * Пауза между порциями, чтобы сборка не забирала ввод-вывод у основной нагрузки.
+         */
+        private Duration pause = Duration.ofMillis(200);
+        private int maxPerRun = 50000;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.egartech.documents.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(UploadProperties.class)
+public class UploadConfig {
+}
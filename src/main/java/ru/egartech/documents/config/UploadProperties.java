@@ -0,0 +1,26 @@
+package ru.egartech.documents.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "documents.upload")
+public class UploadProperties {
+    private Path stagingDir = Path.of("storage", "uploads");
+
+    private DataSize maxFileSize = DataSize.ofGigabytes(10);
+
+    private Duration sessionTtl = Duration.ofHours(24);
+
+    /**
+     * Сколько занятая запросом сессия может не продлеваться, прежде чем ее займет другой запрос.
+     * Пишущий запрос продлевает сессию каждые lock-timeout / 2 и прекращает запись, если ее заняли.
+     */
+    private Duration lockTimeout = Duration.ofMinutes(1);
+}
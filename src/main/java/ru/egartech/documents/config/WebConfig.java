@@ -1,13 +1,20 @@
 package ru.egartech.documents.config;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.web.filter.HiddenHttpMethodFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+    private final Environment environment;
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
@@ -15,6 +22,21 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/styles.css").addResourceLocations("classpath:/static/");
     }
 
+    /**
+     * Исполнитель для StreamingResponseBody и CompletableFuture-ответов: скачивание файлов,
+     * архивов и выгрузок. Собственные пулы приложения отключают applicationTaskExecutor
+     * Spring Boot, поэтому исполнитель задается явно и в режиме spring.threads.virtual.enabled
+     * переходит на виртуальные потоки. Тела ответов выполняются с подсказками маршрутизации
+     * потока запроса: запрос с cookie {@link ReadYourWritesFilter} и читает с основной базы.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        executor.setTaskDecorator(ReplicaRouting::propagate);
+        configurer.setTaskExecutor(executor);
+    }
+
     @Bean
     public HiddenHttpMethodFilter hiddenHttpMethodFilter() {
         return new HiddenHttpMethodFilter();
@@ -0,0 +1,139 @@
+package ru.egartech.documents.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.egartech.documents.dto.CacheStatisticDto;
+import ru.egartech.documents.dto.ContentMigrationResultDto;
+import ru.egartech.documents.dto.ExtractionStatusDto;
+import ru.egartech.documents.dto.LargeObjectGcResultDto;
+import ru.egartech.documents.dto.PinningStatisticDto;
+import ru.egartech.documents.dto.StorageStatisticDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
+import ru.egartech.documents.exceptions.baseresponse.ResponseWrapper;
+import ru.egartech.documents.service.cache.CacheStatisticService;
+import ru.egartech.documents.service.extraction.TextExtractionService;
+import ru.egartech.documents.service.monitoring.VirtualThreadPinningMonitor;
+import ru.egartech.documents.service.retention.FileRetentionService;
+import ru.egartech.documents.service.statistic.FileStatisticService;
+import ru.egartech.documents.service.storage.ContentMigrationService;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.service.storage.LargeObjectCollector;
+import ru.egartech.documents.service.storage.ShardRebalanceService;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminRestController {
+    private final ContentService contentService;
+    private final ObjectProvider<ContentMigrationService> contentMigrationService;
+    private final ObjectProvider<ShardRebalanceService> shardRebalanceService;
+    private final ObjectProvider<LargeObjectCollector> largeObjectCollector;
+    private final TextExtractionService textExtractionService;
+    private final FileStatisticService fileStatisticService;
+    private final FileRetentionService fileRetentionService;
+    private final CacheStatisticService cacheStatisticService;
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+    private final BaseResponseService baseResponseService;
+
+    @Operation(summary = "Получить статистику хранилища и коэффициент дедупликации")
+    @GetMapping("/storage/statistic")
+    public ResponseWrapper<StorageStatisticDto> getStorageStatistic() {
+        return baseResponseService.wrapSuccessResponse(contentService.getStatistic());
+    }
+
+    @Operation(summary = "Перенести порцию содержимого файлов из основной базы данных в файловое хранилище или базы содержимого",
+            description = "Порции идут по возрастанию id: следующую запрашивают с after из поля next ответа")
+    @PostMapping("/storage/migrate")
+    public ResponseWrapper<ContentMigrationResultDto> migrateContent(
+            @RequestParam(required = false, defaultValue = "100") int batchSize,
+            @RequestParam(required = false) UUID after) {
+        ContentMigrationService migrationService = contentMigrationService.getIfAvailable();
+        if (migrationService == null) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Содержимое хранится в основной базе данных, переносить нечего");
+        }
+        return baseResponseService.wrapSuccessResponse(migrationService.migrate(batchSize, after));
+    }
+
+    @Operation(summary = "Перенести порцию содержимого базы содержимого на базы, к которым его относит хеш после добавления баз",
+            description = "shard - номер базы в documents.storage.shards; порции идут по возрастанию id: " +
+                    "следующую запрашивают с after из поля next ответа")
+    @PostMapping("/storage/rebalance")
+    public ResponseWrapper<ContentMigrationResultDto> rebalanceContent(
+            @RequestParam int shard,
+            @RequestParam(required = false, defaultValue = "100") int batchSize,
+            @RequestParam(required = false) UUID after) {
+        ShardRebalanceService rebalanceService = shardRebalanceService.getIfAvailable();
+        if (rebalanceService == null) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Содержимое не распределено между базами");
+        }
+        return baseResponseService.wrapSuccessResponse(rebalanceService.rebalance(shard, batchSize, after));
+    }
+
+    @Operation(summary = "Удалить large object, на которые не ссылается ни один файл")
+    @PostMapping("/storage/large-objects/collect")
+    public ResponseWrapper<LargeObjectGcResultDto> collectLargeObjects(
+            @RequestParam(required = false, defaultValue = "true") boolean dryRun) {
+        LargeObjectCollector collector = largeObjectCollector.getIfAvailable();
+        if (collector == null) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Сборка large object отключена");
+        }
+        return baseResponseService.wrapSuccessResponse(collector.collectNow(dryRun));
+    }
+
+    @Operation(summary = "Получить состояние очереди извлечения текста из документов")
+    @GetMapping("/extraction")
+    public ResponseWrapper<ExtractionStatusDto> getExtractionStatus() {
+        return baseResponseService.wrapSuccessResponse(textExtractionService.getStatus());
+    }
+
+    @Operation(summary = "Поставить в очередь извлечение текста для файлов без актуального текста")
+    @PostMapping("/extraction/reindex")
+    public ResponseWrapper<?> reindexText(@RequestParam(required = false, defaultValue = "500") int batchSize) {
+        int scheduled = textExtractionService.reindex(batchSize);
+        return baseResponseService.wrapSuccessResponse(
+                String.format("Поставлено в очередь файлов: %d", scheduled));
+    }
+
+    @Operation(summary = "Пересчитать сводную статистику файлов по дням и типам")
+    @PostMapping("/statistic/rebuild")
+    public ResponseWrapper<?> rebuildStatistic() {
+        int rows = fileStatisticService.rebuild();
+        return baseResponseService.wrapSuccessResponse(
+                String.format("Пересчитано строк статистики: %d", rows));
+    }
+
+    @Operation(summary = "Создать недостающие секции таблицы файлов и снять секции с истекшим сроком хранения")
+    @PostMapping("/retention/apply")
+    public ResponseWrapper<?> applyRetention() {
+        int purged = fileRetentionService.maintain();
+        return baseResponseService.wrapSuccessResponse(
+                String.format("Снято секций: %d", purged));
+    }
+
+    @Operation(summary = "Получить статистику попаданий в кэши метаданных")
+    @GetMapping("/cache")
+    public ResponseWrapper<List<CacheStatisticDto>> getCacheStatistic() {
+        return baseResponseService.wrapSuccessResponse(cacheStatisticService.getStatistic());
+    }
+
+    @Operation(summary = "Получить статистику закрепления виртуальных потоков на потоках-носителях")
+    @GetMapping("/threads/pinning")
+    public ResponseWrapper<PinningStatisticDto> getPinningStatistic() {
+        VirtualThreadPinningMonitor monitor = pinningMonitor.getIfAvailable();
+        if (monitor == null) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Режим виртуальных потоков не включен");
+        }
+        return baseResponseService.wrapSuccessResponse(monitor.getStatistic());
+    }
+}
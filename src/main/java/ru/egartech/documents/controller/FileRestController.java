@@ -1,21 +1,38 @@
 package ru.egartech.documents.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import ru.egartech.documents.dto.FileResponseDto;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.egartech.documents.dto.BulkUploadResultDto;
+import ru.egartech.documents.dto.FilePageDto;
+import ru.egartech.documents.dto.FileStatisticDto;
+import ru.egartech.documents.dto.ReportJobDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
 import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
 import ru.egartech.documents.exceptions.baseresponse.ResponseWrapper;
+import ru.egartech.documents.service.BulkUploadService;
+import ru.egartech.documents.service.FileArchiveService;
+import ru.egartech.documents.service.FileDownloadService;
 import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.service.report.ReportJobService;
+import ru.egartech.documents.utils.ReportFormat;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Validated
 @RestController
@@ -23,29 +40,75 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class FileRestController {
     private final FileService fileService;
+    private final FileDownloadService fileDownloadService;
+    private final BulkUploadService bulkUploadService;
+    private final FileArchiveService fileArchiveService;
+    private final ReportJobService reportJobService;
     private final BaseResponseService baseResponseService;
 
-    @Operation(summary = "Получить список всех файлов в системе")
+    @Operation(summary = "Получить страницу списка всех файлов в системе")
     @GetMapping
-    public ResponseWrapper<List<FileResponseDto>> getAllFiles(@RequestParam(required = false) String sort) {
-        List<FileResponseDto> files = fileService.findAll();
+    public ResponseWrapper<FilePageDto> getAllFiles(
+            @RequestParam(required = false, defaultValue = "name") String sortField,
+            @RequestParam(required = false, defaultValue = "asc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        FilePageDto files = fileService.findAllSorted(sortField, sortOrder, cursor, limit);
         return baseResponseService.wrapSuccessResponse(files);
     }
 
-    @Operation(summary = "Получить список всех файлов, номер, имя или тип которых содержат данные поисковой строки")
+    @Operation(summary = "Получить страницу файлов, номер, имя или тип которых содержат данные поисковой строки",
+            description = "Сортировка relevance идет по убыванию ранга, порядок sortOrder для нее не учитывается. "
+                    + "Курсор relevance действителен только с той же строкой поиска; "
+                    + "без строки поиска файлы сортируются по имени")
     @GetMapping("/search")
-    public ResponseWrapper<List<FileResponseDto>> searchFiles(
+    public ResponseWrapper<FilePageDto> searchFiles(
             @RequestParam(required = false) String searchRequest,
             @RequestParam(required = false, defaultValue = "name") String sortField,
-            @RequestParam(required = false, defaultValue = "asc") String sortOrder) {
-        List<FileResponseDto> files = fileService.searchByIdOrNameOrType(searchRequest != null ? searchRequest : "", sortField, sortOrder);
+            @RequestParam(required = false, defaultValue = "asc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        FilePageDto files = fileService.searchByIdOrNameOrType(searchRequest != null ? searchRequest : "",
+                sortField, sortOrder, cursor, limit);
         return baseResponseService.wrapSuccessResponse(files);
     }
 
+    @Operation(summary = "Выгрузить список файлов потоком в формате NDJSON")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFiles(
+            @RequestParam(required = false) String searchRequest,
+            @RequestParam(required = false, defaultValue = "name") String sortField,
+            @RequestParam(required = false, defaultValue = "asc") String sortOrder) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(fileService.streamFiles(searchRequest, sortField, sortOrder));
+    }
+
     @Operation(summary = "Скачать файл по id")
     @GetMapping("/{id}")
-    public ResponseEntity<byte[]> getFile(@PathVariable UUID id) {
-        return fileService.downloadById(id);
+    public ResponseEntity<StreamingResponseBody> getFile(@PathVariable UUID id,
+                                                         @RequestHeader HttpHeaders headers) {
+        return fileDownloadService.downloadById(id, headers);
+    }
+
+    @Operation(summary = "Скачать ZIP-архив с файлами по списку id или по поисковой строке")
+    @PostMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestParam(required = false) String searchRequest) {
+        StreamingResponseBody body;
+        if (ids != null && !ids.isEmpty()) {
+            body = fileArchiveService.archiveByIds(ids);
+        } else if (searchRequest != null && !searchRequest.isBlank()) {
+            body = fileArchiveService.archiveBySearch(searchRequest);
+        } else {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Нужно указать id файлов или строку поиска");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("documents.zip").build().toString())
+                .body(body);
     }
 
     @Operation(summary = "Загрузить новый файл в систему")
@@ -57,6 +120,32 @@ public class FileRestController {
                 String.format("Файл успешно загружен: %s", file.getOriginalFilename()));
     }
 
+    @Operation(summary = "Загрузить новый файл потоком из тела запроса")
+    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseWrapper<?> uploadFileStream(@RequestParam String name,
+                                               @RequestParam(required = false) String contentType,
+                                               @RequestParam String description,
+                                               HttpServletRequest request) throws IOException {
+        fileService.save(name, contentType, description, request.getInputStream());
+        return baseResponseService.wrapSuccessResponse(
+                String.format("Файл успешно загружен: %s", name));
+    }
+
+    @Operation(summary = "Загрузить несколько файлов одним запросом")
+    @PostMapping(value = "/upload/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseWrapper<BulkUploadResultDto> uploadFiles(@RequestParam List<MultipartFile> files,
+                                                            @RequestParam(required = false) String description) {
+        return baseResponseService.wrapSuccessResponse(bulkUploadService.upload(files, description));
+    }
+
+    @Operation(summary = "Загрузить файлы из ZIP-архива, переданного потоком в теле запроса")
+    @PostMapping(value = "/upload/bulk", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseWrapper<BulkUploadResultDto> uploadZip(@RequestParam(required = false) String description,
+                                                          HttpServletRequest request) throws IOException {
+        return baseResponseService.wrapSuccessResponse(
+                bulkUploadService.uploadZip(request.getInputStream(), description));
+    }
+
     @Operation(summary = "Изменить имя существующего файла по id")
     @PutMapping("/{id}/changeName")
     public ResponseWrapper<?> changeFileName(@PathVariable UUID id,
@@ -84,11 +173,45 @@ public class FileRestController {
         return baseResponseService.wrapSuccessResponse("Файл успешно удален");
     }
 
-    @Operation(summary = "Создать файл со статистикой обновляемых файлов за определенный промежуток времени")
+    @Operation(summary = "Получить статистику обновляемых файлов за определенный промежуток времени")
+    @GetMapping("/statistic")
+    public ResponseWrapper<FileStatisticDto> getStatistic(@RequestParam LocalDate startDate,
+                                                         @RequestParam LocalDate endDate) {
+        return baseResponseService.wrapSuccessResponse(fileService.getStatistic(startDate, endDate));
+    }
+
+    @Operation(summary = "Поставить в очередь формирование файла со статистикой обновляемых файлов за период")
     @PostMapping("/statistic")
-    public ResponseWrapper<?> createStatisticDocument(@RequestParam LocalDate startDate,
-                                                      @RequestParam LocalDate endDate) {
-        fileService.createStatisticDocument(startDate, endDate);
-        return baseResponseService.wrapSuccessResponse("Документ со статистикой успешно сгенерирован");
+    public ResponseWrapper<ReportJobDto> createStatisticDocument(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "docx") String format) {
+        return baseResponseService.wrapSuccessResponse(
+                reportJobService.submit(startDate, endDate, ReportFormat.fromExtension(format)));
+    }
+
+    @Operation(summary = "Выгрузить потоком список файлов за период в формате xlsx или csv")
+    @GetMapping("/statistic/export")
+    public ResponseEntity<StreamingResponseBody> exportFiles(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "xlsx") String format) {
+        ReportFormat reportFormat = ReportFormat.fromExtension(format);
+        StreamingResponseBody body = fileService.exportFiles(startDate, endDate, reportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(reportFormat.getMimeType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(String.format("files_%s_%s.%s", startDate, endDate, reportFormat.getExtension()))
+                        .build().toString())
+                .body(body);
+    }
+
+    @Operation(summary = "Получить состояние задачи формирования статистики, ожидая ее завершения до waitSeconds секунд")
+    @GetMapping("/statistic/jobs/{id}")
+    public CompletableFuture<ResponseWrapper<ReportJobDto>> getStatisticJob(
+            @PathVariable UUID id,
+            @RequestParam(required = false, defaultValue = "0") long waitSeconds) {
+        return reportJobService.await(id, Duration.ofSeconds(waitSeconds))
+                .thenApply(baseResponseService::wrapSuccessResponse);
     }
 }
@@ -23,7 +23,7 @@ public class FileViewController {
     public String getAllFiles(@RequestParam(required = false, defaultValue = "name") String sortField,
                               @RequestParam(required = false, defaultValue = "asc") String sortOrder,
                               Model model) {
-        List<FileResponseDto> files = fileService.findAllSorted(sortField, sortOrder);
+        List<FileResponseDto> files = fileService.findAllSorted(sortField, sortOrder, null, null).getItems();
         model.addAttribute("files", files);
         model.addAttribute("sortField", sortField);
         model.addAttribute("sortOrder", sortOrder);
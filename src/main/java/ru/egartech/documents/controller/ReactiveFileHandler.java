@@ -0,0 +1,157 @@
+package ru.egartech.documents.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.egartech.documents.dto.FileResponseDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
+import ru.egartech.documents.service.FileDownloadService;
+import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.service.PreparedDownload;
+import ru.egartech.documents.service.monitoring.DocumentsMetrics;
+import ru.egartech.documents.service.storage.ContentService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реактивная передача содержимого файлов. Поток цикла событий не блокируется:
+ * файлы файлового хранилища читаются через AsynchronousFileChannel, а обращения
+ * к базе данных (метаданные, large object) выполняются на boundedElastic и только
+ * по запросу подписчика, так что медленный клиент не заставляет читать наперед.
+ * Загрузка сначала принимается во временный файл и лишь затем одной блокирующей
+ * операцией сохраняется в хранилище, поэтому медленный клиент не держит соединение с базой.
+ */
+@Slf4j
+public class ReactiveFileHandler {
+    private final FileDownloadService fileDownloadService;
+    private final FileService fileService;
+    private final ContentService contentService;
+    private final DocumentsMetrics documentsMetrics;
+    private final BaseResponseService baseResponseService;
+    private final Path stagingDir;
+    private final long maxFileSize;
+    private final int bufferSize;
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    public ReactiveFileHandler(FileDownloadService fileDownloadService,
+                               FileService fileService,
+                               ContentService contentService,
+                               DocumentsMetrics documentsMetrics,
+                               BaseResponseService baseResponseService,
+                               Path stagingDir,
+                               long maxFileSize,
+                               int bufferSize) {
+        this.fileDownloadService = fileDownloadService;
+        this.fileService = fileService;
+        this.contentService = contentService;
+        this.documentsMetrics = documentsMetrics;
+        this.baseResponseService = baseResponseService;
+        this.stagingDir = stagingDir.toAbsolutePath().normalize();
+        this.maxFileSize = maxFileSize;
+        this.bufferSize = bufferSize;
+    }
+
+    public Mono<ServerResponse> download(ServerRequest request) {
+        UUID id = UUID.fromString(request.pathVariable("id"));
+        return Mono.fromCallable(() -> fileDownloadService.prepare(id, request.headers().asHttpHeaders()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(download -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.status(download.status())
+                            .headers(headers -> headers.addAll(download.headers()));
+                    return download.hasBody()
+                            ? response.body(BodyInserters.fromDataBuffers(measured(content(download))))
+                            : response.build();
+                });
+    }
+
+    public Mono<ServerResponse> upload(ServerRequest request) {
+        String name = request.queryParam("name")
+                .orElseThrow(() -> new DocumentsException(ErrorType.NOT_VALID_NAME));
+        String contentType = request.queryParam("contentType").orElse(null);
+        String description = request.queryParam("description").orElse(null);
+        log.info("Reactive upload of file: {}", name);
+        return Mono.fromCallable(() -> {
+                    fileService.validateNewName(name);
+                    Files.createDirectories(stagingDir);
+                    return Files.createTempFile(stagingDir, "reactive-", ".upload");
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(temp -> DataBufferUtils.write(limit(request.body(BodyExtractors.toDataBuffers())), temp)
+                        .then(Mono.fromCallable(() -> save(temp, name, contentType, description))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .doFinally(signal -> deleteQuietly(temp)))
+                .flatMap(file -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(baseResponseService.wrapSuccessResponse(file)));
+    }
+
+    private Flux<DataBuffer> content(PreparedDownload download) {
+        if (download.isStoredBytes()) {
+            Optional<Path> path = contentService.localPath(download.contentId());
+            if (path.isPresent()) {
+                Flux<DataBuffer> content = DataBufferUtils.readAsynchronousFileChannel(
+                        () -> AsynchronousFileChannel.open(path.get(), StandardOpenOption.READ),
+                        download.offset(), bufferFactory, bufferSize);
+                return download.sendEncoded() ? content : DataBufferUtils.takeUntilByteCount(content, download.length());
+            }
+        }
+        Flux<DataBuffer> content = DataBufferUtils.readInputStream(() -> fileDownloadService.open(download),
+                        bufferFactory, bufferSize)
+                .subscribeOn(Schedulers.boundedElastic());
+        return download.sendEncoded() ? content : DataBufferUtils.takeUntilByteCount(content, download.length());
+    }
+
+    private Flux<DataBuffer> measured(Flux<DataBuffer> content) {
+        return Flux.using(documentsMetrics::startDownload,
+                transfer -> content.doOnNext(buffer -> transfer.addBytes(buffer.readableByteCount())),
+                DocumentsMetrics.Transfer::close);
+    }
+
+    private Flux<DataBuffer> limit(Flux<DataBuffer> body) {
+        AtomicLong received = new AtomicLong();
+        return body.handle((buffer, sink) -> {
+            if (received.addAndGet(buffer.readableByteCount()) > maxFileSize) {
+                DataBufferUtils.release(buffer);
+                sink.error(new DocumentsException(ErrorType.UPLOAD_TOO_BIG));
+            } else {
+                sink.next(buffer);
+            }
+        });
+    }
+
+    private FileResponseDto save(Path temp, String name, String contentType, String description) throws IOException {
+        UUID fileId;
+        try (InputStream in = Files.newInputStream(temp)) {
+            fileId = fileService.saveAssembled(name, contentType, description, in);
+        }
+        return fileService.findById(fileId);
+    }
+
+    private void deleteQuietly(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary upload {}: {}", temp, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.egartech.documents.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.egartech.documents.dto.FileResponseDto;
+import ru.egartech.documents.dto.UploadSessionDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
+import ru.egartech.documents.exceptions.baseresponse.ResponseWrapper;
+import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.service.UploadSessionService;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+public class UploadRestController {
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+    private static final HttpStatusCode MISDIRECTED_REQUEST = HttpStatusCode.valueOf(421);
+
+    private final UploadSessionService uploadSessionService;
+    private final FileService fileService;
+    private final BaseResponseService baseResponseService;
+
+    @Operation(summary = "Начать загрузку файла частями")
+    @PostMapping
+    public ResponseWrapper<UploadSessionDto> createSession(@RequestParam String name,
+                                                           @RequestParam long length,
+                                                           @RequestParam(required = false) String contentType,
+                                                           @RequestParam(required = false) String description)
+            throws IOException {
+        return baseResponseService.wrapSuccessResponse(
+                uploadSessionService.create(name, contentType, length, description));
+    }
+
+    @Operation(summary = "Получить состояние загрузки и смещение следующей части")
+    @GetMapping("/{id}")
+    public ResponseWrapper<UploadSessionDto> getSession(@PathVariable UUID id) {
+        return baseResponseService.wrapSuccessResponse(uploadSessionService.findById(id));
+    }
+
+    @Operation(summary = "Получить смещение следующей части в заголовке Upload-Offset")
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getOffset(@PathVariable UUID id) {
+        UploadSessionDto session = uploadSessionService.findById(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .build();
+    }
+
+    @Operation(summary = "Дописать часть файла, начиная со смещения из заголовка Upload-Offset",
+            description = "409, если смещение не совпадает с принятым объемом или часть уже пишется другим запросом; " +
+                    "421, если загрузку начал другой экземпляр сервиса")
+    @PatchMapping(value = "/{id}", consumes = {OFFSET_OCTET_STREAM, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ResponseWrapper<UploadSessionDto>> appendChunk(@PathVariable UUID id,
+                                                                         @RequestHeader(UPLOAD_OFFSET) long offset,
+                                                                         HttpServletRequest request)
+            throws IOException {
+        UploadSessionDto session = uploadSessionService.append(id, offset, request.getInputStream());
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .body(baseResponseService.wrapSuccessResponse(session));
+    }
+
+    @Operation(summary = "Завершить загрузку и сохранить собранный файл",
+            description = "409, если получены не все части файла")
+    @PostMapping("/{id}/complete")
+    public ResponseWrapper<FileResponseDto> completeSession(@PathVariable UUID id) throws IOException {
+        UUID fileId = uploadSessionService.complete(id);
+        return baseResponseService.wrapSuccessResponse(fileService.findById(fileId));
+    }
+
+    @Operation(summary = "Отменить загрузку и удалить принятые части")
+    @DeleteMapping("/{id}")
+    public ResponseWrapper<?> cancelSession(@PathVariable UUID id) throws IOException {
+        uploadSessionService.cancel(id);
+        return baseResponseService.wrapSuccessResponse("Загрузка отменена");
+    }
+
+    /**
+     * Клиент загрузки ориентируется на статус ответа: при 409 он запрашивает текущее смещение
+     * (HEAD) и продолжает с него, а 421 означает, что запрос попал не на экземпляр, принявший
+     * загрузку. Остальные ошибки отдаются, как во всем API.
+     */
+    @ExceptionHandler(DocumentsException.class)
+    public ResponseEntity<ResponseWrapper<?>> handleDocumentsException(DocumentsException exception) {
+        HttpStatusCode status = switch (exception.getType()) {
+            case UPLOAD_OFFSET_MISMATCH, UPLOAD_INCOMPLETE -> HttpStatus.CONFLICT;
+            case UPLOAD_STAGED_ELSEWHERE -> MISDIRECTED_REQUEST;
+            default -> HttpStatus.OK;
+        };
+        return ResponseEntity.status(status).body(baseResponseService.wrapErrorResponse(exception));
+    }
+}
@@ -0,0 +1,27 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@Schema(description = "Результат загрузки одного файла из пакета")
+public class BulkUploadItemDto {
+    @Schema(description = "Имя файла")
+    private String name;
+
+    @Schema(description = "Id созданного файла")
+    private UUID id;
+
+    @Schema(description = "Признак успешной загрузки")
+    private boolean success;
+
+    @Schema(description = "Код ошибки")
+    private String error;
+
+    @Schema(description = "Описание ошибки")
+    private String message;
+}
@@ -0,0 +1,33 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Результат пакетной загрузки файлов")
+public class BulkUploadResultDto {
+    @Schema(description = "Количество загруженных файлов")
+    private int created;
+
+    @Schema(description = "Количество незагруженных файлов")
+    private int failed;
+
+    @Schema(description = "Объем загруженных данных в байтах")
+    private long bytes;
+
+    @Schema(description = "Длительность загрузки в миллисекундах")
+    private long durationMillis;
+
+    @Schema(description = "Скорость загрузки, файлов в секунду")
+    private double filesPerSecond;
+
+    @Schema(description = "Скорость загрузки, байт в секунду")
+    private double bytesPerSecond;
+
+    @Schema(description = "Результаты по каждому файлу")
+    private List<BulkUploadItemDto> items;
+}
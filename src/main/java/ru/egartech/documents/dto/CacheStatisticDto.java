@@ -0,0 +1,37 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Статистика кэша")
+public class CacheStatisticDto {
+    @Schema(description = "Имя кэша")
+    private String name;
+
+    @Schema(description = "Количество записей")
+    private long size;
+
+    @Schema(description = "Количество попаданий")
+    private long hitCount;
+
+    @Schema(description = "Количество промахов")
+    private long missCount;
+
+    @Schema(description = "Доля попаданий")
+    private double hitRate;
+
+    @Schema(description = "Количество вытесненных записей")
+    private long evictionCount;
+
+    @Schema(description = "Занятый объем в байтах (для кэша содержимого)")
+    private long weightedSize;
+
+    @Schema(description = "Вытесненный объем в байтах (для кэша содержимого)")
+    private long evictionWeight;
+
+    @Schema(description = "Количество запросов, не допущенных в кэш из-за размера (для кэша содержимого)")
+    private long rejectedCount;
+}
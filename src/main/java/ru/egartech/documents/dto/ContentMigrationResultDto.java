@@ -0,0 +1,22 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@Schema(description = "Результат переноса порции содержимого")
+public class ContentMigrationResultDto {
+    @Schema(description = "Перенесено содержимых")
+    private int moved;
+
+    @Schema(description = "Содержимое, которое не удалось перенести; остается в основной базе")
+    private List<UUID> failed;
+
+    @Schema(description = "Значение after для следующей порции; null, если просмотрены все строки")
+    private UUID next;
+}
@@ -0,0 +1,19 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Статистика файлов одного типа")
+public class ContentTypeStatisticDto {
+    @Schema(description = "Тип файла")
+    private String contentType;
+
+    @Schema(description = "Количество файлов")
+    private long files;
+
+    @Schema(description = "Суммарный размер файлов в байтах")
+    private long totalSize;
+}
@@ -0,0 +1,19 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Состояние очереди извлечения текста")
+public class ExtractionStatusDto {
+    @Schema(description = "Задач в очереди")
+    private int queued;
+
+    @Schema(description = "Задач в работе")
+    private int active;
+
+    @Schema(description = "Файлов, текст которых еще не извлечен или устарел")
+    private long pending;
+}
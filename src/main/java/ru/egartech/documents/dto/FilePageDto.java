@@ -0,0 +1,18 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Страница списка документов")
+public class FilePageDto {
+    @Schema(description = "Документы на странице")
+    private List<FileResponseDto> items;
+
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней странице")
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Статистика добавления/редактирования файлов за период")
+public class FileStatisticDto {
+    @Schema(description = "Начало периода")
+    private LocalDate periodStart;
+
+    @Schema(description = "Конец периода")
+    private LocalDate periodEnd;
+
+    @Schema(description = "Общее количество файлов")
+    private long totalFiles;
+
+    @Schema(description = "Общий размер файлов в байтах")
+    private long totalSize;
+
+    @Schema(description = "Время изменения самого последнего измененного файла")
+    private LocalDateTime lastModified;
+
+    @Schema(description = "Статистика по типам файлов")
+    private List<ContentTypeStatisticDto> types;
+}
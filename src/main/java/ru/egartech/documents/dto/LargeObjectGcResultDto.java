@@ -0,0 +1,22 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Результат сборки large object без ссылок")
+public class LargeObjectGcResultDto {
+    @Schema(description = "Объекты только подсчитаны, без удаления")
+    private boolean dryRun;
+
+    @Schema(description = "Найдено large object без ссылок из file_contents")
+    private long found;
+
+    @Schema(description = "Удалено large object")
+    private long unlinked;
+
+    @Schema(description = "Обход завершен; false, если достигнут лимит на запуск или сборку ведет другой экземпляр")
+    private boolean complete;
+}
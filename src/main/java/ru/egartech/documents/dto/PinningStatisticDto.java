@@ -0,0 +1,24 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+@Schema(description = "Статистика закрепления виртуальных потоков на потоках-носителях")
+public class PinningStatisticDto {
+    @Schema(description = "Минимальная длительность закрепления, которая учитывается, мс")
+    private long thresholdMillis;
+
+    @Schema(description = "Количество закреплений")
+    private long pinnedCount;
+
+    @Schema(description = "Суммарная длительность закреплений, мс")
+    private long pinnedMillis;
+
+    @Schema(description = "Количество закреплений по месту в коде")
+    private Map<String, Long> sites;
+}
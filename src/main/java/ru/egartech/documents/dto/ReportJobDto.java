@@ -0,0 +1,43 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import ru.egartech.documents.service.report.ReportJobStatus;
+import ru.egartech.documents.utils.ReportFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@Schema(description = "Задача формирования документа со статистикой")
+public class ReportJobDto {
+    @Schema(description = "Идентификатор задачи")
+    private UUID id;
+
+    @Schema(description = "Состояние задачи")
+    private ReportJobStatus status;
+
+    @Schema(description = "Начало периода")
+    private LocalDate periodStart;
+
+    @Schema(description = "Конец периода")
+    private LocalDate periodEnd;
+
+    @Schema(description = "Формат документа")
+    private ReportFormat format;
+
+    @Schema(description = "Идентификатор сформированного файла")
+    private UUID fileId;
+
+    @Schema(description = "Описание ошибки")
+    private String error;
+
+    @Schema(description = "Время постановки в очередь")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Время завершения")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,25 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Статистика хранилища содержимого")
+public class StorageStatisticDto {
+    @Schema(description = "Количество файлов")
+    private long files;
+
+    @Schema(description = "Количество уникальных содержимых")
+    private long contents;
+
+    @Schema(description = "Суммарный размер файлов в байтах")
+    private long logicalSize;
+
+    @Schema(description = "Фактически занимаемый объем в байтах")
+    private long physicalSize;
+
+    @Schema(description = "Коэффициент дедупликации (логический объем / фактический)")
+    private double deduplicationRatio;
+}
@@ -0,0 +1,28 @@
+package ru.egartech.documents.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@Schema(description = "Сессия загрузки файла частями")
+public class UploadSessionDto {
+    @Schema(description = "Идентификатор сессии")
+    private UUID id;
+
+    @Schema(description = "Название файла")
+    private String name;
+
+    @Schema(description = "Объявленный размер файла в байтах")
+    private long length;
+
+    @Schema(description = "Количество принятых байт, смещение следующей части")
+    private long offset;
+
+    @Schema(description = "Время, после которого неактивная сессия будет удалена")
+    private LocalDateTime expiresAt;
+}
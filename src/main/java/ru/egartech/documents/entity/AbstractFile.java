@@ -18,9 +18,4 @@ public abstract class AbstractFile {
 
     @Column(name = "size", nullable = false)
     private Long size;
-
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "data", nullable = false)
-    private byte[] data;
 }
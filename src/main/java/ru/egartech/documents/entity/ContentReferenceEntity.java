@@ -0,0 +1,34 @@
+package ru.egartech.documents.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "content_references")
+public class ContentReferenceEntity {
+    @Id
+    @Column(name = "content_id", unique = true, nullable = false)
+    private UUID contentId;
+
+    @Column(name = "checksum", unique = true, nullable = false, length = 64)
+    private String checksum;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    @Column(name = "encoding", length = 16)
+    private String encoding;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+}
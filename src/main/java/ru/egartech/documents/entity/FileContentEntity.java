@@ -0,0 +1,23 @@
+package ru.egartech.documents.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "file_contents")
+public class FileContentEntity {
+    @Id
+    @Column(name = "id", unique = true, nullable = false)
+    private UUID id;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+}
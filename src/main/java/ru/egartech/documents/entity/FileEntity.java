@@ -24,4 +24,13 @@ public class FileEntity extends AbstractFile {
 
     @Column(name = "last_modified")
     private LocalDateTime lastModified;
+
+    @Column(name = "content_id")
+    private UUID contentId;
+
+    @Column(name = "checksum", length = 64)
+    private String checksum;
+
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
 }
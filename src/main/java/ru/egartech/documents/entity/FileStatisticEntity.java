@@ -0,0 +1,27 @@
+package ru.egartech.documents.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "file_statistics")
+public class FileStatisticEntity {
+    @EmbeddedId
+    private FileStatisticId id;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "max_last_modified")
+    private LocalDateTime maxLastModified;
+}
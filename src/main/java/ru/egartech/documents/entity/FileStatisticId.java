@@ -0,0 +1,26 @@
+package ru.egartech.documents.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Embeddable
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileStatisticId implements Serializable {
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+}
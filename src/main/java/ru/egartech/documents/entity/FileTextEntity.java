@@ -0,0 +1,29 @@
+package ru.egartech.documents.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "file_texts")
+public class FileTextEntity {
+    @Id
+    @Column(name = "file_id", unique = true, nullable = false)
+    private UUID fileId;
+
+    @Column(name = "content_id", nullable = false)
+    private UUID contentId;
+
+    @Column(name = "text", nullable = false, columnDefinition = "text")
+    private String text;
+
+    @Column(name = "extracted_at", nullable = false)
+    private LocalDateTime extractedAt;
+}
@@ -13,7 +13,11 @@ public enum ErrorType {
     MUST_BE_SAME("Разные файлы", "У обновляемого файла должно быть такое же название"),
     TOO_BIG("Слишком большой вес файла", "Вес файла не должен привышать 100мб"),
     ALREADY_EXISTS("Ошибка уникальности", "Файл с таким именем уже существует"),
-    NOT_VALID_NAME("Неверное имя файла", "Имя файла не должно содержать знаки < > : \" / \\ | ? * ;");
+    NOT_VALID_NAME("Неверное имя файла", "Имя файла не должно содержать знаки < > : \" / \\ | ? * ;"),
+    UPLOAD_TOO_BIG("Слишком большой вес файла", "Размер файла превышает допустимый для загрузки частями"),
+    UPLOAD_OFFSET_MISMATCH("Неверное смещение", "Смещение части не совпадает с уже принятым объемом, запросите текущее смещение"),
+    UPLOAD_INCOMPLETE("Загрузка не завершена", "Получены не все части файла"),
+    UPLOAD_STAGED_ELSEWHERE("Загрузка начата на другом экземпляре", "Принятые части хранятся на экземпляре, который начал загрузку: запросы загрузки должны попадать на него");
 
     private final String title;
     private final String text;
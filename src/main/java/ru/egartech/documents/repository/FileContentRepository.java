@@ -0,0 +1,11 @@
+package ru.egartech.documents.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.egartech.documents.entity.FileContentEntity;
+
+import java.util.UUID;
+
+@Repository
+public interface FileContentRepository extends JpaRepository<FileContentEntity, UUID> {
+}
@@ -0,0 +1,34 @@
+package ru.egartech.documents.repository;
+
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция в отсортированном списке файлов: значение поля сортировки и id последней выданной записи.
+ * Id разрешает равенство значений, поэтому страницы не пересекаются и не теряют записи.
+ */
+public record FileCursor(String value, UUID id) {
+    public static FileCursor of(FileEntity file, FileSortField sortField) {
+        return new FileCursor(sortField.valueOf(file), file.getId());
+    }
+
+    public static FileCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('\n');
+            return new FileCursor(decoded.substring(separator + 1), UUID.fromString(decoded.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + "\n" + value).getBytes(StandardCharsets.UTF_8));
+    }
+}
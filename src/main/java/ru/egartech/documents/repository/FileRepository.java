@@ -1,26 +1,31 @@
 package ru.egartech.documents.repository;
 
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.egartech.documents.entity.FileEntity;
 
-import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface FileRepository extends JpaRepository<FileEntity, UUID> {
-    @Query("SELECT f FROM FileEntity f WHERE " +
-            "LOWER(f.name) LIKE LOWER(CONCAT('%', :searchString, '%')) OR " +
-            "LOWER(f.contentType) LIKE LOWER(CONCAT('%', :searchString, '%')) OR " +
-            "LOWER(f.description) LIKE LOWER(CONCAT('%', :searchString, '%'))")
-    List<FileEntity> findBySearchRequest(@Param("searchString") String searchString, Sort sort);
+public interface FileRepository extends JpaRepository<FileEntity, UUID>, FileRepositoryCustom {
+    Optional<FileEntity> findByName(String name);
 
-    List<FileEntity> findAllByLastModifiedBetween(LocalDateTime startDateTime, LocalDateTime endDateTime);
+    boolean existsByName(String name);
 
-    Optional<FileEntity> findByName(String name);
+    /**
+     * Записывает только контрольную сумму и только если ее еще нет, а содержимое файла не сменилось:
+     * параллельное изменение файла не перезаписывается.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileEntity f SET f.checksum = :checksum " +
+            "WHERE f.id = :id AND f.contentId = :contentId AND f.checksum IS NULL")
+    int setMissingChecksum(@Param("id") UUID id,
+                           @Param("contentId") UUID contentId,
+                           @Param("checksum") String checksum);
 }
\ No newline at end of file
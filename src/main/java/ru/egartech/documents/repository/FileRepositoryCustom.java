@@ -0,0 +1,24 @@
+package ru.egartech.documents.repository;
+
+import org.springframework.data.domain.Sort;
+import ru.egartech.documents.entity.FileEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface FileRepositoryCustom {
+    /**
+     * Страница файлов после курсора after. Сортировка RELEVANCE требует непустой строки поиска,
+     * значение ее курсора — ранг файла ({@link #relevanceOf}).
+     */
+    List<FileEntity> findPage(String searchString, FileSortField sortField, Sort.Direction direction,
+                              FileCursor after, int limit);
+
+    float relevanceOf(String searchString, UUID id);
+
+    Stream<FileEntity> streamAll(String searchString, FileSortField sortField, Sort.Direction direction);
+
+    Stream<FileEntity> streamByLastModifiedBetween(LocalDateTime startDateTime, LocalDateTime endDateTime);
+}
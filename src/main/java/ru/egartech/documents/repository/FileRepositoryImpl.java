@@ -0,0 +1,167 @@
+package ru.egartech.documents.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import ru.egartech.documents.entity.FileEntity;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FileRepositoryImpl implements FileRepositoryCustom {
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LIKE_SPECIAL = Pattern.compile("[\\\\%_]");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<FileEntity> findPage(String searchString, FileSortField sortField, Sort.Direction direction,
+                                     FileCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT f.* FROM files f WHERE ").append(searchCondition(searchString));
+        if (after != null && sortField == FileSortField.RELEVANCE) {
+            // ранг убывает, id возрастает, поэтому сравнение строк (rank, id) здесь не подходит
+            String rank = rank(searchString);
+            sql.append(" AND (").append(rank).append(" < :cursorValue OR (")
+                    .append(rank).append(" = :cursorValue AND f.id > :cursorId))");
+        } else if (after != null) {
+            sql.append(" AND (").append(sortField.getExpression()).append(", f.id) ")
+                    .append(direction.isAscending() ? ">" : "<")
+                    .append(" (:cursorValue, :cursorId)");
+        }
+        sql.append(orderBy(searchString, sortField, direction)).append(" LIMIT :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), FileEntity.class);
+        bindSearch(query, searchString);
+        if (after != null) {
+            query.setParameter("cursorValue", sortField.parseValue(after.value()));
+            query.setParameter("cursorId", after.id());
+        }
+        query.setParameter("limit", limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public float relevanceOf(String searchString, UUID id) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT " + rank(searchString) + " FROM files f WHERE f.id = :id AND " + searchCondition(searchString),
+                Float.class);
+        bindSearch(query, searchString);
+        query.setParameter("id", id);
+        return ((Number) query.getSingleResult()).floatValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<FileEntity> streamAll(String searchString, FileSortField sortField, Sort.Direction direction) {
+        String sql = "SELECT f.* FROM files f WHERE " + searchCondition(searchString) + orderBy(searchString, sortField, direction);
+        Query query = entityManager.createNativeQuery(sql, FileEntity.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        bindSearch(query, searchString);
+        Stream<FileEntity> files = query.getResultStream();
+        return files.peek(entityManager::detach);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<FileEntity> streamByLastModifiedBetween(LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        Query query = entityManager.createNativeQuery("SELECT f.* FROM files f " +
+                        "WHERE f.last_modified BETWEEN :startDateTime AND :endDateTime " +
+                        "ORDER BY f.last_modified, f.id", FileEntity.class)
+                .setParameter("startDateTime", startDateTime)
+                .setParameter("endDateTime", endDateTime)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        Stream<FileEntity> files = query.getResultStream();
+        return files.peek(entityManager::detach);
+    }
+
+    /*
+     * Все ветки условия обслуживаются индексами из миграций: search_vector файла и его текста по GIN,
+     * LIKE и <% (нечеткое совпадение слова) по GIN-индексам pg_trgm.
+     */
+    private String searchCondition(String searchString) {
+        if (isBlank(searchString)) {
+            return "TRUE";
+        }
+        String condition = "LOWER(f.name) LIKE :pattern ESCAPE '\\' " +
+                "OR LOWER(f.content_type) LIKE :pattern ESCAPE '\\' " +
+                "OR LOWER(f.description) LIKE :pattern ESCAPE '\\' " +
+                "OR :query <% LOWER(f.name) OR :query <% LOWER(f.description)";
+        if (toTsQuery(searchString) != null) {
+            condition = "f.search_vector @@ to_tsquery('simple', :tsQuery) " +
+                    "OR EXISTS (SELECT 1 FROM file_texts t WHERE t.file_id = f.id " +
+                    "AND t.search_vector @@ to_tsquery('simple', :tsQuery)) OR " + condition;
+        }
+        return "(" + condition + ")";
+    }
+
+    private void bindSearch(Query query, String searchString) {
+        if (isBlank(searchString)) {
+            return;
+        }
+        String normalized = searchString.trim().toLowerCase();
+        query.setParameter("pattern", "%" + escapeLike(normalized) + "%");
+        query.setParameter("query", normalized);
+        String tsQuery = toTsQuery(searchString);
+        if (tsQuery != null) {
+            query.setParameter("tsQuery", tsQuery);
+        }
+    }
+
+    /**
+     * Символы шаблона LIKE в строке поиска ищутся как есть: поиск "%" не должен совпадать со всеми файлами.
+     */
+    private String escapeLike(String value) {
+        return LIKE_SPECIAL.matcher(value).replaceAll("\\\\$0");
+    }
+
+    private String orderBy(String searchString, FileSortField sortField, Sort.Direction direction) {
+        if (sortField == FileSortField.RELEVANCE) {
+            if (isBlank(searchString)) {
+                return " ORDER BY f.name ASC, f.id ASC";
+            }
+            return " ORDER BY " + rank(searchString) + " DESC, f.id ASC";
+        }
+        String order = direction.isAscending() ? " ASC" : " DESC";
+        return " ORDER BY " + sortField.getExpression() + order + ", f.id" + order;
+    }
+
+    /**
+     * Ранг файла для строки поиска. Тип выражения real: значение, прочитанное из одного запроса,
+     * точно совпадает с вычисленным в другом, поэтому годится для курсора.
+     */
+    private String rank(String searchString) {
+        String rank = "word_similarity(:query, LOWER(f.name))";
+        if (toTsQuery(searchString) != null) {
+            rank = "ts_rank(f.search_vector, to_tsquery('simple', :tsQuery)) + " + rank;
+        }
+        return rank;
+    }
+
+    /**
+     * Превращает строку поиска в префиксный tsquery: "отчет 2024" -> "отчет:* &amp; 2024:*".
+     */
+    private String toTsQuery(String searchString) {
+        String[] tokens = TOKEN_SEPARATOR.split(searchString.trim().toLowerCase());
+        String tsQuery = Arrays.stream(tokens)
+                .filter(token -> !token.isEmpty())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+        return tsQuery.isEmpty() ? null : tsQuery;
+    }
+
+    private boolean isBlank(String searchString) {
+        return searchString == null || searchString.isBlank();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.egartech.documents.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+@Getter
+@RequiredArgsConstructor
+public enum FileSortField {
+    NAME("name", "f.name"),
+    SIZE("size", "f.size"),
+    CONTENT_TYPE("contentType", "f.content_type"),
+    LAST_MODIFIED("lastModified", "COALESCE(f.last_modified, TIMESTAMP '1970-01-01 00:00:00')"),
+    RELEVANCE("relevance", null);
+
+    private static final LocalDateTime NO_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final String field;
+    private final String expression;
+
+    public static FileSortField fromField(String field) {
+        return Arrays.stream(values())
+                .filter(sortField -> sortField.field.equals(field))
+                .findFirst()
+                .orElseThrow(() -> new DocumentsException(ErrorType.CLIENT_ERROR,
+                        String.format("Сортировка по полю %s не поддерживается", field)));
+    }
+
+    public String valueOf(FileEntity file) {
+        return switch (this) {
+            case NAME -> file.getName();
+            case SIZE -> String.valueOf(file.getSize());
+            case CONTENT_TYPE -> file.getContentType();
+            case LAST_MODIFIED -> String.valueOf(file.getLastModified() != null ? file.getLastModified() : NO_DATE);
+            case RELEVANCE -> throw new DocumentsException(ErrorType.CLIENT_ERROR);
+        };
+    }
+
+    public Object parseValue(String value) {
+        return switch (this) {
+            case NAME, CONTENT_TYPE -> value;
+            case SIZE -> Long.valueOf(value);
+            case RELEVANCE -> Float.valueOf(value);
+            case LAST_MODIFIED -> LocalDateTime.parse(value);
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package ru.egartech.documents.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.egartech.documents.entity.FileStatisticEntity;
+import ru.egartech.documents.entity.FileStatisticId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FileStatisticRepository extends JpaRepository<FileStatisticEntity, FileStatisticId> {
+    @Query("SELECT s.id.contentType AS contentType, SUM(s.fileCount) AS fileCount, " +
+            "SUM(s.totalSize) AS totalSize, MAX(s.maxLastModified) AS lastModified " +
+            "FROM FileStatisticEntity s WHERE s.id.day BETWEEN :periodStart AND :periodEnd " +
+            "GROUP BY s.id.contentType ORDER BY s.id.contentType")
+    List<ContentTypeTotals> sumByContentType(@Param("periodStart") LocalDate periodStart,
+                                             @Param("periodEnd") LocalDate periodEnd);
+
+    interface ContentTypeTotals {
+        String getContentType();
+
+        Long getFileCount();
+
+        Long getTotalSize();
+
+        LocalDateTime getLastModified();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.egartech.documents.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.egartech.documents.entity.FileTextEntity;
+
+import java.util.UUID;
+
+@Repository
+public interface FileTextRepository extends JpaRepository<FileTextEntity, UUID> {
+}
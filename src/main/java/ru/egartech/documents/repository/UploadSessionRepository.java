@@ -0,0 +1,72 @@
+package ru.egartech.documents.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.egartech.documents.entity.UploadSessionEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSessionEntity, UUID> {
+    List<UploadSessionEntity> findAllByUpdatedAtBefore(LocalDateTime threshold);
+
+    /**
+     * Занимает сессию для запроса writer, если ее никто не занял или занявший не продлевал
+     * ее с момента stale.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSessionEntity s SET s.writer = :writer, s.updatedAt = :now " +
+            "WHERE s.id = :id AND (s.writer IS NULL OR s.updatedAt < :stale)")
+    int claim(@Param("id") UUID id,
+              @Param("writer") UUID writer,
+              @Param("now") LocalDateTime now,
+              @Param("stale") LocalDateTime stale);
+
+    /**
+     * Продление видно другим экземплярам сразу, даже если запись идет внутри транзакции.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE UploadSessionEntity s SET s.updatedAt = :now WHERE s.id = :id AND s.writer = :writer")
+    int renew(@Param("id") UUID id, @Param("writer") UUID writer, @Param("now") LocalDateTime now);
+
+    /**
+     * Фиксирует принятый объем и освобождает сессию, только если она все еще занята writer
+     * и принятый объем не сменился с начала записи.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSessionEntity s SET s.received = :received, s.writer = NULL, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.writer = :writer AND s.received = :offset")
+    int release(@Param("id") UUID id,
+                @Param("writer") UUID writer,
+                @Param("offset") long offset,
+                @Param("received") long received,
+                @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSessionEntity s SET s.writer = NULL WHERE s.id = :id AND s.writer = :writer")
+    int unlock(@Param("id") UUID id, @Param("writer") UUID writer);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSessionEntity s WHERE s.id = :id AND s.writer = :writer")
+    int deleteClaimed(@Param("id") UUID id, @Param("writer") UUID writer);
+
+    /**
+     * Удаляет сессию, только если ее никто не продлевал с момента threshold.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSessionEntity s WHERE s.id = :id AND s.updatedAt < :threshold")
+    int deleteExpired(@Param("id") UUID id, @Param("threshold") LocalDateTime threshold);
+}
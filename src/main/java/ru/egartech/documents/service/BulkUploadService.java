@@ -0,0 +1,263 @@
+package ru.egartech.documents.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import ru.egartech.documents.config.CacheConfig;
+import ru.egartech.documents.dto.BulkUploadItemDto;
+import ru.egartech.documents.dto.BulkUploadResultDto;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.service.event.FileContentChangedEvent;
+import ru.egartech.documents.service.statistic.FileStatisticService;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.service.storage.StoredContent;
+import ru.egartech.documents.utils.MimeTypeUtil;
+import ru.egartech.documents.utils.SizeLimitInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Пакетная загрузка файлов. Элементы сохраняются порциями по hibernate.jdbc.batch_size,
+ * каждая порция в своей транзакции, так что строки files вставляются JDBC-пакетами.
+ * Ошибка в одном элементе (имя, дубликат, размер) не прерывает загрузку остальных.
+ */
+@Slf4j
+@Service
+public class BulkUploadService {
+    private static final String ZIP_METADATA_DIR = "__MACOSX/";
+
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final ContentService contentService;
+    private final FileStatisticService fileStatisticService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxFileSize;
+
+    public BulkUploadService(FileRepository fileRepository,
+                             FileService fileService,
+                             ContentService contentService,
+                             FileStatisticService fileStatisticService,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                             @Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize) {
+        this.fileRepository = fileRepository;
+        this.fileService = fileService;
+        this.contentService = contentService;
+        this.fileStatisticService = fileStatisticService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    public BulkUploadResultDto upload(List<MultipartFile> files, String description) {
+        log.info("Bulk upload of {} files", files.size());
+        Iterator<MultipartFile> iterator = files.iterator();
+        return process(() -> {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            MultipartFile file = iterator.next();
+            String mimeType = file.getContentType() != null ? file.getContentType() : guessMimeType(file.getOriginalFilename());
+            return new BulkItem(file.getOriginalFilename(), mimeType, file.getInputStream());
+        }, description);
+    }
+
+    /**
+     * Загружает файлы из ZIP-архива, читая его потоком: записи сохраняются по мере
+     * поступления, архив целиком не буферизуется. Каталоги в именах записей отбрасываются.
+     */
+    @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    public BulkUploadResultDto uploadZip(InputStream archive, String description) {
+        log.info("Bulk upload from zip archive");
+        ZipInputStream zip = new ZipInputStream(archive);
+        InputStream entryStream = new FilterInputStream(zip) {
+            @Override
+            public void close() {
+                // запись закрывается переходом к следующей, сам архив закрывает вызывающий
+            }
+        };
+        return process(() -> {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory() && !entry.getName().startsWith(ZIP_METADATA_DIR)) {
+                    String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                    return new BulkItem(name, guessMimeType(name), entryStream);
+                }
+            }
+            return null;
+        }, description);
+    }
+
+    private BulkUploadResultDto process(ItemSource source, String description) {
+        long started = System.nanoTime();
+        List<BulkUploadItemDto> results = new ArrayList<>();
+        long bytes = 0;
+        boolean hasMore = true;
+        while (hasMore) {
+            Chunk chunk = new Chunk();
+            try {
+                hasMore = Boolean.TRUE.equals(transactionTemplate.execute(status -> saveChunk(source, description, chunk)));
+                bytes += chunk.bytes;
+            } catch (DataAccessException | UncheckedIOException e) {
+                log.error("Bulk upload chunk failed: {}", e.getMessage(), e);
+                ErrorType errorType = e instanceof DataAccessException ? ErrorType.DB_ERROR : ErrorType.COMMON_ERROR;
+                chunk.created.forEach(item -> markFailed(item, errorType, e.getMessage()));
+                hasMore = e instanceof DataAccessException;
+            }
+            results.addAll(chunk.results);
+        }
+
+        long durationMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        int created = (int) results.stream().filter(BulkUploadItemDto::isSuccess).count();
+        log.info("Bulk upload finished: {} created, {} failed, {} bytes in {} ms",
+                created, results.size() - created, bytes, durationMillis);
+        return BulkUploadResultDto.builder()
+                .created(created)
+                .failed(results.size() - created)
+                .bytes(bytes)
+                .durationMillis(durationMillis)
+                .filesPerSecond(created * 1000.0 / durationMillis)
+                .bytesPerSecond(bytes * 1000.0 / durationMillis)
+                .items(results)
+                .build();
+    }
+
+    private boolean saveChunk(ItemSource source, String description, Chunk chunk) {
+        List<FileEntity> entities = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        boolean hasMore = true;
+        while (entities.size() < batchSize) {
+            BulkItem item;
+            try {
+                item = source.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (item == null) {
+                hasMore = false;
+                break;
+            }
+            BulkUploadItemDto result = saveItem(item, description, names, entities);
+            chunk.results.add(result);
+            if (result.isSuccess()) {
+                chunk.created.add(result);
+            }
+        }
+
+        fileRepository.saveAll(entities);
+        fileRepository.flush();
+        fileStatisticService.addAll(entities);
+        for (int i = 0; i < entities.size(); i++) {
+            FileEntity file = entities.get(i);
+            chunk.created.get(i).setId(file.getId());
+            chunk.bytes += file.getSize();
+            eventPublisher.publishEvent(new FileContentChangedEvent(file.getId(), file.getContentId(), file.getContentType()));
+        }
+        return hasMore;
+    }
+
+    private BulkUploadItemDto saveItem(BulkItem item, String description, Set<String> names, List<FileEntity> entities) {
+        String name = item.name();
+        try {
+            fileService.validateNewName(name);
+        } catch (DocumentsException e) {
+            return discard(item, e.getType());
+        }
+        if (!names.add(name)) {
+            return discard(item, ErrorType.ALREADY_EXISTS);
+        }
+        FileEntity file = new FileEntity();
+        file.setName(name);
+        file.setContentType(MimeTypeUtil.getReadableMimeType(item.mimeType()));
+        file.setDescription(description);
+        file.setLastModified(LocalDateTime.now());
+        try {
+            StoredContent content = contentService.store(
+                    new SizeLimitInputStream(item.content(), maxFileSize), file.getContentType());
+            file.setContentId(content.contentId());
+            file.setSize(content.size());
+            file.setChecksum(content.checksum());
+            file.setContentEncoding(content.encoding().getValue());
+        } catch (DocumentsException e) {
+            names.remove(name);
+            return failed(name, e.getType(), e.getType().getText());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entities.add(file);
+        return BulkUploadItemDto.builder()
+                .name(name)
+                .success(true)
+                .build();
+    }
+
+    private BulkUploadItemDto discard(BulkItem item, ErrorType errorType) {
+        try {
+            item.content().close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return failed(item.name(), errorType, errorType.getText());
+    }
+
+    private BulkUploadItemDto failed(String name, ErrorType errorType, String message) {
+        return BulkUploadItemDto.builder()
+                .name(name)
+                .success(false)
+                .error(errorType.name())
+                .message(message)
+                .build();
+    }
+
+    private void markFailed(BulkUploadItemDto item, ErrorType errorType, String message) {
+        item.setId(null);
+        item.setSuccess(false);
+        item.setError(errorType.name());
+        item.setMessage(message);
+    }
+
+    private String guessMimeType(String name) {
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private interface ItemSource {
+        BulkItem next() throws IOException;
+    }
+
+    private record BulkItem(String name, String mimeType, InputStream content) {
+    }
+
+    private static class Chunk {
+        private final List<BulkUploadItemDto> results = new ArrayList<>();
+        private final List<BulkUploadItemDto> created = new ArrayList<>();
+        private long bytes;
+    }
+}
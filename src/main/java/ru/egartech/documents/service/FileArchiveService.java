@@ -0,0 +1,107 @@
+package ru.egartech.documents.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.repository.FileSortField;
+import ru.egartech.documents.service.storage.ContentEncoding;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.utils.MimeTypeUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Отдает набор файлов одним ZIP-архивом, записывая его прямо в ответ: содержимое
+ * файлов читается из хранилища последовательно, архив в памяти не собирается.
+ * Уже сжатые форматы кладутся с уровнем сжатия 0, чтобы не тратить на них процессор.
+ */
+@Slf4j
+@Service
+public class FileArchiveService {
+    public static final int MAX_IDS = 1000;
+
+    private final FileRepository fileRepository;
+    private final ContentService contentService;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public FileArchiveService(FileRepository fileRepository, ContentService contentService,
+                              PlatformTransactionManager transactionManager) {
+        this.fileRepository = fileRepository;
+        this.contentService = contentService;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public StreamingResponseBody archiveByIds(List<UUID> ids) {
+        log.info("Archive {} files by id", ids.size());
+        if (ids.size() > MAX_IDS) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR,
+                    String.format("В архив можно добавить не более %d файлов", MAX_IDS));
+        }
+        Map<UUID, FileEntity> filesById = fileRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(FileEntity::getId, Function.identity()));
+        if (filesById.isEmpty()) {
+            throw new DocumentsException(ErrorType.NOT_FOUND);
+        }
+        List<FileEntity> files = ids.stream().distinct().map(filesById::get).filter(Objects::nonNull).toList();
+        return outputStream -> writeArchive(files.iterator(), outputStream);
+    }
+
+    public StreamingResponseBody archiveBySearch(String searchRequest) {
+        log.info("Archive files by search: {}", searchRequest);
+        return outputStream -> readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<FileEntity> files = fileRepository.streamAll(searchRequest, FileSortField.NAME, Sort.Direction.ASC)) {
+                writeArchive(files.iterator(), outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeArchive(Iterator<FileEntity> files, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        WritableByteChannel channel = Channels.newChannel(zip);
+        int count = 0;
+        while (files.hasNext()) {
+            FileEntity file = files.next();
+            zip.setLevel(MimeTypeUtil.isCompressed(file.getContentType())
+                    ? Deflater.NO_COMPRESSION
+                    : Deflater.DEFAULT_COMPRESSION);
+            ZipEntry entry = new ZipEntry(file.getName());
+            if (file.getLastModified() != null) {
+                entry.setTime(file.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            zip.putNextEntry(entry);
+            contentService.transferTo(file.getContentId(), ContentEncoding.fromValue(file.getContentEncoding()),
+                    file.getSize(), 0, file.getSize(), channel);
+            zip.closeEntry();
+            count++;
+        }
+        zip.finish();
+        zip.flush();
+        log.info("Archive with {} files written", count);
+    }
+}
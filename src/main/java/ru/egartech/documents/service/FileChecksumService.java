@@ -0,0 +1,87 @@
+package ru.egartech.documents.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.service.storage.ContentEncoding;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.utils.ChecksumUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Контрольные суммы файлов, сохраненных до их появления (ETag скачивания). Недостающие суммы
+ * досчитываются в фоне порциями, поэтому скачивание обычно только читает метаданные; если файл
+ * запрошен раньше, сумма считается при скачивании. Сумма записывается отдельным UPDATE
+ * одной колонки, а не сохранением всей сущности.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileChecksumService {
+    private static final int BATCH_SIZE = 100;
+    private static final UUID MIN_ID = new UUID(0, 0);
+
+    private final FileRepository fileRepository;
+    private final ContentService contentService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public String ensureChecksum(FileEntity file) {
+        if (file.getChecksum() != null) {
+            return file.getChecksum();
+        }
+        String checksum = compute(file.getContentId(), file.getContentEncoding());
+        fileRepository.setMissingChecksum(file.getId(), file.getContentId(), checksum);
+        return checksum;
+    }
+
+    @Scheduled(initialDelayString = "${documents.storage.checksum-backfill.initial-delay:PT1M}",
+            fixedDelayString = "${documents.storage.checksum-backfill.interval:PT1H}")
+    public void backfill() {
+        UUID lastId = MIN_ID;
+        int updated = 0;
+        while (true) {
+            List<MissingChecksum> batch = jdbcTemplate.query(
+                    "SELECT id, content_id, content_encoding FROM files " +
+                            "WHERE checksum IS NULL AND content_id IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new MissingChecksum(rs.getObject("id", UUID.class),
+                            rs.getObject("content_id", UUID.class), rs.getString("content_encoding")),
+                    lastId, BATCH_SIZE);
+            for (MissingChecksum file : batch) {
+                try {
+                    updated += fileRepository.setMissingChecksum(file.id(), file.contentId(),
+                            compute(file.contentId(), file.contentEncoding()));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to compute checksum of file {}: {}", file.id(), e.getMessage());
+                }
+                lastId = file.id();
+            }
+            if (batch.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        if (updated > 0) {
+            log.info("Computed {} missing file checksums", updated);
+        }
+    }
+
+    private String compute(UUID contentId, String contentEncoding) {
+        try (InputStream in = contentService.read(contentId, ContentEncoding.fromValue(contentEncoding))) {
+            return ChecksumUtil.sha256(in);
+        } catch (IOException e) {
+            throw new DocumentsException(ErrorType.COMMON_ERROR, e);
+        }
+    }
+
+    private record MissingChecksum(UUID id, UUID contentId, String contentEncoding) {
+    }
+}
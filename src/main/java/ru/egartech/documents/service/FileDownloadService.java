@@ -0,0 +1,271 @@
+package ru.egartech.documents.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.egartech.documents.config.ReplicaRouting;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.service.storage.ContentEncoding;
+import ru.egartech.documents.service.storage.ContentService;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileDownloadService {
+    private static final String BYTES_UNIT = "bytes";
+
+    private final FileRepository fileRepository;
+    private final ContentService contentService;
+    private final FileChecksumService fileChecksumService;
+
+    public ResponseEntity<StreamingResponseBody> downloadById(UUID id, HttpHeaders requestHeaders) {
+        PreparedDownload download = prepare(id, requestHeaders);
+        if (!download.hasBody()) {
+            return ResponseEntity.status(download.status()).headers(download.headers()).build();
+        }
+        return ResponseEntity.status(download.status())
+                .headers(download.headers())
+                .body(outputStream -> transfer(download, Channels.newChannel(outputStream)));
+    }
+
+    /**
+     * Разбирает условные заголовки, Range и Accept-Encoding запроса и формирует
+     * статус и заголовки ответа. Используется и блокирующим, и реактивным API.
+     */
+    public PreparedDownload prepare(UUID id, HttpHeaders requestHeaders) {
+        log.info("Download file by id: {}", id);
+        FileEntity fileEntity = fileRepository.findById(id)
+                .orElseThrow(() -> new DocumentsException(ErrorType.NOT_FOUND));
+        ContentEncoding encoding = ContentEncoding.fromValue(fileEntity.getContentEncoding());
+        boolean sendEncoded = encoding != ContentEncoding.IDENTITY
+                && !requestHeaders.containsKey(HttpHeaders.RANGE)
+                && acceptsEncoding(requestHeaders, encoding);
+        String checksum = fileChecksumService.ensureChecksum(fileEntity);
+        String eTag = sendEncoded ? "\"" + checksum + "-" + encoding.getValue() + "\"" : "\"" + checksum + "\"";
+        long lastModified = fileEntity.getLastModified() != null
+                ? fileEntity.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        if (lastModified != -1) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.noCache());
+        headers.set(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        if (encoding != ContentEncoding.IDENTITY) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+
+        if (isNotModified(requestHeaders, eTag, lastModified)) {
+            return PreparedDownload.withoutBody(HttpStatus.NOT_MODIFIED, headers);
+        }
+
+        String encodedFilename = URLEncoder.encode(fileEntity.getName(), StandardCharsets.UTF_8)
+                .replace("+", "%20");
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", encodedFilename);
+
+        long size = fileEntity.getSize();
+        if (sendEncoded) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding.getValue());
+            return new PreparedDownload(HttpStatus.OK, headers, fileEntity.getContentId(), encoding, true,
+                    size, 0, Long.MAX_VALUE);
+        }
+
+        HttpRange range = resolveRange(requestHeaders, eTag, lastModified, size);
+        if (range == null) {
+            headers.setContentLength(size);
+            return new PreparedDownload(HttpStatus.OK, headers, fileEntity.getContentId(), encoding, false,
+                    size, 0, size);
+        }
+
+        long start = range.getRangeStart(size);
+        long end = range.getRangeEnd(size);
+        // HttpRange не проверяет, что начало диапазона лежит внутри содержимого
+        if (start >= size) {
+            HttpHeaders rangeHeaders = new HttpHeaders();
+            rangeHeaders.set(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + size);
+            return PreparedDownload.withoutBody(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, rangeHeaders);
+        }
+        long length = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, String.format("%s %d-%d/%d", BYTES_UNIT, start, end, size));
+        headers.setContentLength(length);
+        return new PreparedDownload(HttpStatus.PARTIAL_CONTENT, headers, fileEntity.getContentId(), encoding, false,
+                size, start, length);
+    }
+
+    /**
+     * Содержимое неизменяемо, поэтому читается с реплики; если реплика еще не получила
+     * только что загруженное содержимое, оно читается с основной базы.
+     */
+    public void transfer(PreparedDownload download, WritableByteChannel channel) throws IOException {
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.readOnly()) {
+            transferContent(download, channel);
+            return;
+        } catch (DocumentsException e) {
+            if (e.getType() != ErrorType.NOT_FOUND) {
+                throw e;
+            }
+        }
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.primaryOnly()) {
+            transferContent(download, channel);
+        }
+    }
+
+    /**
+     * Открывает содержимое для передачи по частям (реактивный API) с той же маршрутизацией, что
+     * и {@link #transfer}: реплика, а если она еще не получила содержимое, основная база. Части
+     * читаются в разных потоках, поэтому каждое чтение выполняется в выбранной при открытии области.
+     * Для раскодируемого содержимого поток начинается с offset; length ограничивает вызывающий.
+     */
+    public InputStream open(PreparedDownload download) throws IOException {
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.readOnly()) {
+            return new RoutedInputStream(openContent(download), ReplicaRouting.capture());
+        } catch (DocumentsException e) {
+            if (e.getType() != ErrorType.NOT_FOUND) {
+                throw e;
+            }
+        }
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.primaryOnly()) {
+            return new RoutedInputStream(openContent(download), ReplicaRouting.capture());
+        }
+    }
+
+    private InputStream openContent(PreparedDownload download) throws IOException {
+        if (download.isStoredBytes()) {
+            return contentService.readStored(download.contentId(), download.offset(), download.length());
+        }
+        InputStream in = contentService.read(download.contentId(), download.encoding());
+        try {
+            in.skipNBytes(download.offset());
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    private void transferContent(PreparedDownload download, WritableByteChannel channel) throws IOException {
+        if (download.sendEncoded()) {
+            contentService.transferEncoded(download.contentId(), channel);
+        } else {
+            contentService.transferTo(download.contentId(), download.encoding(), download.size(),
+                    download.offset(), download.length(), channel);
+        }
+    }
+
+    private boolean acceptsEncoding(HttpHeaders requestHeaders, ContentEncoding encoding) {
+        return requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream()
+                .flatMap(header -> Arrays.stream(header.split(",")))
+                .map(String::trim)
+                .anyMatch(coding -> {
+                    String[] parts = coding.split(";");
+                    if (!parts[0].trim().equalsIgnoreCase(encoding.getValue())) {
+                        return false;
+                    }
+                    for (int i = 1; i < parts.length; i++) {
+                        String parameter = parts[i].trim();
+                        if (parameter.startsWith("q=")) {
+                            try {
+                                return Double.parseDouble(parameter.substring(2)) > 0;
+                            } catch (NumberFormatException e) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                });
+    }
+
+    private boolean isNotModified(HttpHeaders requestHeaders, String eTag, long lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.stream()
+                    .anyMatch(tag -> "*".equals(tag) || eTag.equals(tag) || ("W/" + eTag).equals(tag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince != -1 && lastModified != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private HttpRange resolveRange(HttpHeaders requestHeaders, String eTag, long lastModified, long size) {
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (ranges.size() != 1 || size == 0 || !isRangeApplicable(requestHeaders, eTag, lastModified)) {
+            return null;
+        }
+        return ranges.get(0);
+    }
+
+    private boolean isRangeApplicable(HttpHeaders requestHeaders, String eTag, long lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return eTag.equals(ifRange);
+        }
+        try {
+            long ifRangeDate = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return lastModified != -1 && lastModified / 1000 == ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static class RoutedInputStream extends FilterInputStream {
+        private final ReplicaRouting.Snapshot routing;
+
+        private RoutedInputStream(InputStream in, ReplicaRouting.Snapshot routing) {
+            super(in);
+            this.routing = routing;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try (ReplicaRouting.Scope ignored = routing.open()) {
+                return super.read();
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try (ReplicaRouting.Scope ignored = routing.open()) {
+                return super.read(b, off, len);
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            try (ReplicaRouting.Scope ignored = routing.open()) {
+                return super.skip(n);
+            }
+        }
+    }
+}
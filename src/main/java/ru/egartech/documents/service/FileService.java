@@ -1,34 +1,65 @@
 package ru.egartech.documents.service;
 
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.egartech.documents.config.CacheConfig;
+import ru.egartech.documents.dto.FilePageDto;
+import ru.egartech.documents.dto.FileStatisticDto;
 import ru.egartech.documents.dto.FileResponseDto;
 import ru.egartech.documents.entity.FileEntity;
 import ru.egartech.documents.exceptions.DocumentsException;
 import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.repository.FileCursor;
 import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.repository.FileSortField;
+import ru.egartech.documents.service.event.FileContentChangedEvent;
+import ru.egartech.documents.service.event.FileDeletedEvent;
 import ru.egartech.documents.service.mapper.FileMapper;
+import ru.egartech.documents.service.monitoring.DocumentsMetrics;
+import ru.egartech.documents.service.statistic.FileStatisticService;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.service.storage.StoredContent;
+import ru.egartech.documents.utils.FileNameUtil;
+import ru.egartech.documents.utils.FileReportWriter;
 import ru.egartech.documents.utils.MimeTypeUtil;
+import ru.egartech.documents.utils.ReportFormat;
+import ru.egartech.documents.utils.SizeLimitInputStream;
 import ru.egartech.documents.utils.StatisticCreator;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -36,23 +67,31 @@ import java.util.UUID;
 public class FileService {
     private final FileRepository fileRepository;
     private final FileMapper fileMapper;
+    private final ContentService contentService;
+    private final FileStatisticService fileStatisticService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentsMetrics documentsMetrics;
 
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_NAME_LENGTH = 100;
     private static final String DOCX_TYPE = "Microsoft Word Document 2007";
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
-    public List<FileResponseDto> findAll() {
-        log.info("Find all files");
-        List<FileEntity> entities = fileRepository.findAll();
-        return entities.stream().map(fileMapper::toFileResponseDto).toList();
-    }
-
-    public List<FileResponseDto> findAllSorted(String sortField, String sortOrder) {
-        log.info("Find all method with sort: {} {}", sortField, sortOrder);
-        Sort sort = Sort.by(Sort.Direction.fromString(sortOrder), sortField);
-        List<FileEntity> entities = fileRepository.findAll(sort);
-        return entities.stream().map(fileMapper::toFileResponseDto).toList();
+    @Cacheable(cacheNames = CacheConfig.FILE_PAGES_CACHE)
+    @Transactional(readOnly = true)
+    public FilePageDto findAllSorted(String sortField, String sortOrder, String cursor, Integer limit) {
+        log.info("Find all method with sort: {} {}, cursor: {}", sortField, sortOrder, cursor);
+        return findPage(null, sortField, sortOrder, cursor, limit);
     }
 
+    @Cacheable(cacheNames = CacheConfig.FILES_CACHE, key = "#id")
+    @Transactional(readOnly = true)
     public FileResponseDto findById(UUID id){
         log.info("Find file by id: {}", id);
         FileEntity file = fileRepository.findById(id)
@@ -60,110 +99,315 @@ public class FileService {
         return fileMapper.toFileResponseDto(file);
     }
 
-    @Transactional
-    public List<FileResponseDto> searchByIdOrNameOrType(String searchRequest, String sortField, String sortOrder) {
-        Sort sort = Sort.by(Sort.Direction.fromString(sortOrder), sortField);
-        List<FileEntity> entities = fileRepository.findBySearchRequest(searchRequest, sort);
-        return entities.stream().map(fileMapper::toFileResponseDto).toList();
+    @Transactional(readOnly = true)
+    public FilePageDto searchByIdOrNameOrType(String searchRequest, String sortField, String sortOrder,
+                                              String cursor, Integer limit) {
+        return findPage(searchRequest, sortField, sortOrder, cursor, limit);
     }
 
-    public ResponseEntity<byte[]> downloadById(UUID id) {
-        log.info("Download file by id: {}", id);
-        FileEntity fileEntity = fileRepository.findById(id)
-                .orElseThrow(() -> new DocumentsException(ErrorType.NOT_FOUND));
-        String encodedFilename = URLEncoder.encode(fileEntity.getName(), StandardCharsets.UTF_8)
-                .replace("+", "%20");
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", encodedFilename);
-
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(fileEntity.getData());
+    public StreamingResponseBody streamFiles(String searchRequest, String sortField, String sortOrder) {
+        log.info("Stream files with search: {}, sort: {} {}", searchRequest, sortField, sortOrder);
+        FileSortField field = FileSortField.fromField(sortField);
+        Sort.Direction direction = Sort.Direction.fromString(sortOrder);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return outputStream -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<FileEntity> files = fileRepository.streamAll(searchRequest, field, direction)) {
+                Iterator<FileEntity> iterator = files.iterator();
+                while (iterator.hasNext()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(fileMapper.toFileResponseDto(iterator.next())));
+                    outputStream.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
     public void save(MultipartFile multipartFile, String description) throws IOException {
         log.info("Uploading new file: {}; and description: {}", multipartFile, description);
         FileEntity fileEntity = fileMapper.toFileEntity(multipartFile);
-        String mimeType = multipartFile.getContentType();
+        try (InputStream in = multipartFile.getInputStream()) {
+            saveNewFile(fileEntity, multipartFile.getContentType(), description, in);
+        }
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    public void save(String name, String contentType, String description, InputStream inputStream) throws IOException {
+        log.info("Uploading new file from stream: {}; and description: {}", name, description);
+        saveNamedFile(name, contentType, description, new SizeLimitInputStream(inputStream, maxFileSize.toBytes()));
+    }
+
+    /**
+     * Сохраняет файл, собранный из частей сессии загрузки. Размер уже ограничен
+     * documents.upload.max-file-size при создании сессии, лимит multipart здесь не действует.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    public UUID saveAssembled(String name, String contentType, String description, InputStream inputStream)
+            throws IOException {
+        log.info("Saving assembled upload: {}; and description: {}", name, description);
+        return saveNamedFile(name, contentType, description, inputStream);
+    }
+
+    /**
+     * Проверяет имя нового файла заранее, до приема содержимого. Единые правила для всех
+     * способов загрузки: одиночной, пакетной, частями и через реактивный сервер.
+     */
+    public void validateNewName(String name) {
+        if (name == null || name.isBlank() || name.length() > MAX_NAME_LENGTH || !FileNameUtil.isValid(name)) {
+            throw new DocumentsException(ErrorType.NOT_VALID_NAME);
+        }
+        if (fileRepository.existsByName(name)) {
+            throw new DocumentsException(ErrorType.ALREADY_EXISTS);
+        }
+    }
+
+    private UUID saveNamedFile(String name, String contentType, String description, InputStream inputStream)
+            throws IOException {
+        if (!FileNameUtil.isValid(name)) {
+            throw new DocumentsException(ErrorType.NOT_VALID_NAME);
+        }
+        String mimeType = contentType != null
+                ? contentType
+                : MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        FileEntity fileEntity = new FileEntity();
+        fileEntity.setName(name);
+        saveNewFile(fileEntity, mimeType, description, inputStream);
+        return fileEntity.getId();
+    }
+
+    private void saveNewFile(FileEntity fileEntity, String mimeType, String description, InputStream in)
+            throws IOException {
+        if (fileRepository.findByName(fileEntity.getName()).isPresent()) {
+            throw new DocumentsException(ErrorType.ALREADY_EXISTS);
+        }
         String readableMimeType = MimeTypeUtil.getReadableMimeType(mimeType);
         fileEntity.setContentType(readableMimeType);
         fileEntity.setLastModified(LocalDateTime.now());
         fileEntity.setDescription(description);
+        setContent(fileEntity, contentService.store(in, readableMimeType));
         fileRepository.save(fileEntity);
+        fileStatisticService.add(fileEntity);
+        publishContentChanged(fileEntity);
     }
 
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.FILES_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    })
     public void changeName(UUID id, String newName, String description) {
         log.info("Rename file with id: {}, name: {}, and description: {}", id, newName, description);
         FileEntity file = fileRepository.findById(id)
                 .orElseThrow(() -> new DocumentsException(ErrorType.NOT_FOUND));
         String originalFileExtension = getFileExtension(file.getName());
-        if (isValidFileName(newName)){
+        if (FileNameUtil.isValid(newName)){
+            fileStatisticService.remove(file);
             file.setName(newName + originalFileExtension);
             file.setDescription(description);
             file.setLastModified(LocalDateTime.now());
             fileRepository.save(file);
+            fileStatisticService.add(file);
         } else {
             throw new DocumentsException(ErrorType.NOT_VALID_NAME);
         }
     }
 
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.FILES_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    })
     public void update(UUID id, MultipartFile updatedFile, String description) throws IOException {
         log.info("Updating file by id: {}, updated file: {}; and description: {}", id, updatedFile, description);
         FileEntity repoFile = fileRepository.findById(id)
                 .orElseThrow(() -> new DocumentsException(ErrorType.NOT_FOUND));
         if (Objects.equals(updatedFile.getOriginalFilename(), repoFile.getName())){
-            repoFile.setSize(updatedFile.getSize());
-            repoFile.setData(updatedFile.getBytes());
+            UUID previousContentId = repoFile.getContentId();
+            fileStatisticService.remove(repoFile);
+            try (InputStream in = updatedFile.getInputStream()) {
+                setContent(repoFile, contentService.store(in, repoFile.getContentType()));
+            }
             repoFile.setLastModified(LocalDateTime.now());
             repoFile.setDescription(description);
             fileRepository.save(repoFile);
+            fileStatisticService.add(repoFile);
+            contentService.release(previousContentId);
+            publishContentChanged(repoFile);
         } else {
             throw new DocumentsException(ErrorType.MUST_BE_SAME);
         }
     }
 
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.FILES_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.FILE_PAGES_CACHE, allEntries = true)
+    })
     public void deleteById(UUID id){
         log.info("Delete file by id: {}", id);
-        fileRepository.deleteById(id);
+        fileRepository.findById(id).ifPresent(file -> {
+            fileRepository.delete(file);
+            fileStatisticService.remove(file);
+            contentService.release(file.getContentId());
+            eventPublisher.publishEvent(new FileDeletedEvent(file.getId()));
+        });
     }
 
-    @Transactional
-    public void createStatisticDocument(LocalDate periodStart, LocalDate periodEnd) {
+    /**
+     * Формирует документ вне транзакции, чтобы соединение с базой не удерживалось
+     * на время работы POI, и сохраняет его короткой транзакцией.
+     */
+    @CacheEvict(cacheNames = {CacheConfig.FILES_CACHE, CacheConfig.FILE_PAGES_CACHE}, allEntries = true)
+    public UUID createStatisticDocument(LocalDate periodStart, LocalDate periodEnd) {
         log.info("Creating statistic document with period: {} - {}", periodStart, periodEnd);
-        LocalDateTime startDateTime = periodStart.atStartOfDay();
-        LocalDateTime endDateTime = periodEnd.atTime(LocalTime.MAX);
-        List<FileEntity> files = fileRepository.findAllByLastModifiedBetween(startDateTime, endDateTime);
+        FileStatisticDto statistic = fileStatisticService.getStatistic(periodStart, periodEnd);
         String fileName = String.format("Статистика файлов за период: %s - %s.docx",
                 periodStart.format(formatter), periodEnd.format(formatter));
+        String description = String.format("Статистика добавления/редактирования файлов по типам за период: %s", fileName);
         StatisticCreator statisticCreator = new StatisticCreator();
-        byte[] data = statisticCreator.createStatistic(files, periodStart, periodEnd);
+        byte[] data = documentsMetrics.timeReport(ReportFormat.DOCX.getExtension(),
+                () -> statisticCreator.createStatistic(statistic));
+        return new TransactionTemplate(transactionManager).execute(status ->
+                saveReportDocument(fileName, DOCX_TYPE, description, new ByteArrayInputStream(data)));
+    }
+
+    /**
+     * Выгружает построчный отчет по файлам за период во временный файл и сохраняет его
+     * как обычный файл системы. Память не зависит от количества файлов в периоде.
+     */
+    @CacheEvict(cacheNames = {CacheConfig.FILES_CACHE, CacheConfig.FILE_PAGES_CACHE}, allEntries = true)
+    public UUID createExportDocument(LocalDate periodStart, LocalDate periodEnd, ReportFormat format)
+            throws IOException {
+        log.info("Creating {} export document with period: {} - {}", format, periodStart, periodEnd);
+        String fileName = String.format("Выгрузка файлов за период: %s - %s.%s",
+                periodStart.format(formatter), periodEnd.format(formatter), format.getExtension());
+        String description = String.format("Выгрузка добавленных/отредактированных файлов за период: %s", fileName);
+        Path report = Files.createTempFile("report-", "." + format.getExtension());
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(report))) {
+                writeReport(periodStart, periodEnd, format, out);
+            }
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                try (InputStream in = Files.newInputStream(report)) {
+                    return saveReportDocument(fileName, MimeTypeUtil.getReadableMimeType(format.getMimeType()),
+                            description, in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            Files.deleteIfExists(report);
+        }
+    }
+
+    public StreamingResponseBody exportFiles(LocalDate periodStart, LocalDate periodEnd, ReportFormat format) {
+        log.info("Export files with period: {} - {} as {}", periodStart, periodEnd, format);
+        if (format == ReportFormat.DOCX) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Построчная выгрузка в формате docx не поддерживается");
+        }
+        return outputStream -> writeReport(periodStart, periodEnd, format, outputStream);
+    }
+
+    private void writeReport(LocalDate periodStart, LocalDate periodEnd, ReportFormat format, OutputStream out) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        documentsMetrics.timeReport(format.getExtension(), () -> transactionTemplate.execute(status -> {
+            try (Stream<FileEntity> files = fileRepository.streamByLastModifiedBetween(
+                    periodStart.atStartOfDay(), periodEnd.atTime(LocalTime.MAX));
+                 FileReportWriter writer = format.newWriter(out)) {
+                Iterator<FileEntity> iterator = files.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }));
+    }
 
+    private UUID saveReportDocument(String fileName, String contentType, String description, InputStream content) {
         Optional<FileEntity> existingFileOpt = fileRepository.findByName(fileName);
-        FileEntity statisticDocument;
+        FileEntity reportDocument;
 
         if (existingFileOpt.isPresent()) {
-            statisticDocument = existingFileOpt.get();
-            statisticDocument.setSize((long) data.length);
-            statisticDocument.setData(data);
-            statisticDocument.setLastModified(LocalDateTime.now());
+            reportDocument = existingFileOpt.get();
+            fileStatisticService.remove(reportDocument);
+            UUID previousContentId = reportDocument.getContentId();
+            setContent(reportDocument, storeContent(content, reportDocument.getContentType()));
+            contentService.release(previousContentId);
+            reportDocument.setLastModified(LocalDateTime.now());
         } else {
-            statisticDocument = new FileEntity();
-            statisticDocument.setName(fileName);
-            statisticDocument.setContentType(DOCX_TYPE);
-            statisticDocument.setSize((long) data.length);
-            statisticDocument.setData(data);
-            statisticDocument.setDescription(
-                    String.format("Статистика добавления/редактирования файлов по типам за период: %s", fileName));
-            statisticDocument.setLastModified(LocalDateTime.now());
+            reportDocument = new FileEntity();
+            reportDocument.setName(fileName);
+            reportDocument.setContentType(contentType);
+            setContent(reportDocument, storeContent(content, contentType));
+            reportDocument.setDescription(description);
+            reportDocument.setLastModified(LocalDateTime.now());
         }
 
-        fileRepository.save(statisticDocument);
+        fileRepository.save(reportDocument);
+        fileStatisticService.add(reportDocument);
+        publishContentChanged(reportDocument);
+        return reportDocument.getId();
+    }
+
+    public FileStatisticDto getStatistic(LocalDate periodStart, LocalDate periodEnd) {
+        log.info("Get statistic with period: {} - {}", periodStart, periodEnd);
+        return fileStatisticService.getStatistic(periodStart, periodEnd);
+    }
+
+    private FilePageDto findPage(String searchRequest, String sortField, String sortOrder,
+                                 String cursor, Integer limit) {
+        FileSortField field = FileSortField.fromField(sortField);
+        Sort.Direction direction = Sort.Direction.fromString(sortOrder);
+        if (field == FileSortField.RELEVANCE && (searchRequest == null || searchRequest.isBlank())) {
+            // без строки поиска ранги равны, список идет по имени
+            field = FileSortField.NAME;
+            direction = Sort.Direction.ASC;
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        FileCursor after = cursor == null || cursor.isBlank() ? null : FileCursor.decode(cursor);
+
+        List<FileEntity> entities = fileRepository.findPage(searchRequest, field, direction, after, pageSize + 1);
+        String nextCursor = null;
+        if (entities.size() > pageSize) {
+            entities = entities.subList(0, pageSize);
+            FileEntity last = entities.get(pageSize - 1);
+            FileCursor next = field == FileSortField.RELEVANCE
+                    ? new FileCursor(String.valueOf(fileRepository.relevanceOf(searchRequest, last.getId())), last.getId())
+                    : FileCursor.of(last, field);
+            nextCursor = next.encode();
+        }
+        return FilePageDto.builder()
+                .items(entities.stream().map(fileMapper::toFileResponseDto).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private StoredContent storeContent(InputStream content, String contentType) {
+        try {
+            return contentService.store(content, contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void setContent(FileEntity file, StoredContent content) {
+        file.setContentId(content.contentId());
+        file.setSize(content.size());
+        file.setChecksum(content.checksum());
+        file.setContentEncoding(content.encoding().getValue());
     }
 
-    private boolean isValidFileName(String fileName) {
-        String regex = "^[^<>:\"/\\\\|?*;]+$";
-        return fileName.matches(regex);
+    private void publishContentChanged(FileEntity file) {
+        eventPublisher.publishEvent(
+                new FileContentChangedEvent(file.getId(), file.getContentId(), file.getContentType()));
     }
 
     private String getFileExtension(String fileName) {
@@ -0,0 +1,41 @@
+package ru.egartech.documents.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import ru.egartech.documents.service.storage.ContentEncoding;
+
+import java.util.UUID;
+
+/**
+ * Согласованный ответ на скачивание файла, не зависящий от способа передачи: статус
+ * и заголовки уже учитывают условные запросы, диапазон и Content-Encoding, остается
+ * передать length байт начиная с offset.
+ *
+ * @param sendEncoded передаются байты в том виде, в каком они лежат в хранилище
+ *                    (ответ с Content-Encoding), offset и length при этом не применяются
+ */
+public record PreparedDownload(HttpStatus status,
+                               HttpHeaders headers,
+                               UUID contentId,
+                               ContentEncoding encoding,
+                               boolean sendEncoded,
+                               long size,
+                               long offset,
+                               long length) {
+
+    static PreparedDownload withoutBody(HttpStatus status, HttpHeaders headers) {
+        return new PreparedDownload(status, headers, null, ContentEncoding.IDENTITY, false, 0, 0, 0);
+    }
+
+    public boolean hasBody() {
+        return contentId != null;
+    }
+
+    /**
+     * Нужны ли байты из хранилища без раскодирования: для несжатого содержимого
+     * и для передачи с Content-Encoding.
+     */
+    public boolean isStoredBytes() {
+        return sendEncoded || encoding == ContentEncoding.IDENTITY;
+    }
+}
@@ -0,0 +1,329 @@
+package ru.egartech.documents.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.egartech.documents.config.UploadProperties;
+import ru.egartech.documents.dto.UploadSessionDto;
+import ru.egartech.documents.entity.UploadSessionEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.repository.UploadSessionRepository;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Загрузка больших файлов частями с возможностью продолжения после обрыва соединения.
+ * Принятые байты сразу дописываются в файл &lt;id&gt;.part в documents.upload.staging-dir,
+ * а смещение фиксируется в upload_sessions, поэтому память на запрос не зависит от
+ * размера файла и сессия переживает перезапуск. Неактивные сессии удаляются через
+ * documents.upload.session-ttl.
+ * <p>
+ * Файл частей лежит на экземпляре, который начал загрузку. При нескольких экземплярах запросы
+ * /api/uploads/{id} направляются на него (балансировка по id сессии), либо staging-dir делается
+ * общим для всех экземпляров; запрос, попавший туда, где файла частей нет, получает
+ * UPLOAD_STAGED_ELSEWHERE. Одновременно с сессией работает только один запрос любого экземпляра:
+ * он занимает ее условным UPDATE upload_sessions.writer (см. {@link UploadSessionRepository#claim}).
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileService fileService;
+    private final UploadProperties uploadProperties;
+    private final Path stagingDir;
+
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository,
+                                FileService fileService,
+                                UploadProperties uploadProperties) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileService = fileService;
+        this.uploadProperties = uploadProperties;
+        this.stagingDir = uploadProperties.getStagingDir().toAbsolutePath().normalize();
+    }
+
+    public UploadSessionDto create(String name, String contentType, long length, String description)
+            throws IOException {
+        log.info("Create upload session for file: {}, length: {}", name, length);
+        fileService.validateNewName(name);
+        if (length < 0) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Размер файла не может быть отрицательным");
+        }
+        if (length > uploadProperties.getMaxFileSize().toBytes()) {
+            throw new DocumentsException(ErrorType.UPLOAD_TOO_BIG);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSessionEntity session = new UploadSessionEntity();
+        session.setName(name);
+        session.setContentType(contentType != null
+                ? contentType
+                : MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        session.setDescription(description);
+        session.setLength(length);
+        session.setReceived(0L);
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+        uploadSessionRepository.save(session);
+
+        Files.createDirectories(stagingDir);
+        Files.deleteIfExists(partPath(session.getId()));
+        Files.createFile(partPath(session.getId()));
+        return toDto(session);
+    }
+
+    public UploadSessionDto findById(UUID id) {
+        return toDto(getSession(id));
+    }
+
+    /**
+     * Дописывает часть, начинающуюся с offset. Смещение должно совпадать с уже принятым
+     * объемом. Если соединение оборвалось посреди части, принятые до обрыва байты
+     * сохраняются, и клиент продолжает с нового смещения.
+     */
+    public UploadSessionDto append(UUID id, long offset, InputStream chunk) throws IOException {
+        Lease lease = acquire(id);
+        boolean released = false;
+        try {
+            UploadSessionEntity session = getSession(id);
+            if (offset != session.getReceived()) {
+                throw new DocumentsException(ErrorType.UPLOAD_OFFSET_MISMATCH);
+            }
+            long limit = session.getLength() - offset;
+            long written = 0;
+            LocalDateTime releasedAt;
+            try (FileChannel channel = FileChannel.open(stagedPart(id), StandardOpenOption.WRITE)) {
+                // хвост, не подтвержденный в upload_sessions, остался от прерванной записи
+                channel.truncate(offset);
+                channel.position(offset);
+                OutputStream out = Channels.newOutputStream(channel);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                try {
+                    int read;
+                    while ((read = chunk.read(buffer)) != -1) {
+                        if (written + read > limit) {
+                            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Часть выходит за объявленный размер файла");
+                        }
+                        lease.renewIfDue();
+                        out.write(buffer, 0, read);
+                        written += read;
+                    }
+                } finally {
+                    channel.force(false);
+                    releasedAt = LocalDateTime.now();
+                    released = uploadSessionRepository.release(id, lease.writer, offset, offset + written, releasedAt) > 0;
+                }
+            }
+            if (!released) {
+                // сессию занял другой запрос, пока этот не продлевал ее
+                throw new DocumentsException(ErrorType.UPLOAD_OFFSET_MISMATCH);
+            }
+            log.debug("Upload session {}: received {} of {} bytes", id, offset + written, session.getLength());
+            return toDto(session, offset + written, releasedAt);
+        } finally {
+            if (!released) {
+                uploadSessionRepository.unlock(id, lease.writer);
+            }
+        }
+    }
+
+    /**
+     * Сохраняет собранный файл как обычный файл системы и удаляет сессию.
+     */
+    public UUID complete(UUID id) throws IOException {
+        Lease lease = acquire(id);
+        boolean deleted = false;
+        try {
+            UploadSessionEntity session = getSession(id);
+            if (!session.getReceived().equals(session.getLength())) {
+                throw new DocumentsException(ErrorType.UPLOAD_INCOMPLETE);
+            }
+            log.info("Complete upload session {} for file: {}", id, session.getName());
+            Path part = stagedPart(id);
+            UUID fileId;
+            try (InputStream in = new LeasedInputStream(Files.newInputStream(part), lease)) {
+                fileId = fileService.saveAssembled(session.getName(), session.getContentType(),
+                        session.getDescription(), in);
+            }
+            deleted = uploadSessionRepository.deleteClaimed(id, lease.writer) > 0;
+            Files.deleteIfExists(part);
+            return fileId;
+        } finally {
+            if (!deleted) {
+                uploadSessionRepository.unlock(id, lease.writer);
+            }
+        }
+    }
+
+    public void cancel(UUID id) throws IOException {
+        Lease lease = acquire(id);
+        log.info("Cancel upload session {}", id);
+        if (uploadSessionRepository.deleteClaimed(id, lease.writer) > 0) {
+            Files.deleteIfExists(partPath(id));
+        }
+    }
+
+    /**
+     * Удаляет сессии, в которые ничего не дописывалось дольше documents.upload.session-ttl,
+     * и файлы частей, для которых сессии уже нет. Сессии, в которые сейчас идет запись, пропускаются.
+     */
+    @Scheduled(fixedDelayString = "${documents.upload.cleanup-interval:PT15M}")
+    public void removeExpiredSessions() {
+        LocalDateTime threshold = LocalDateTime.now().minus(uploadProperties.getSessionTtl());
+        int removed = 0;
+        for (UploadSessionEntity session : uploadSessionRepository.findAllByUpdatedAtBefore(threshold)) {
+            try {
+                // сессия, которую успели занять или продлить, не удаляется
+                if (uploadSessionRepository.deleteExpired(session.getId(), threshold) > 0) {
+                    Files.deleteIfExists(partPath(session.getId()));
+                    removed++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to remove expired upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        removed += removeOrphanParts(threshold);
+        if (removed > 0) {
+            log.info("Removed {} expired upload sessions", removed);
+        }
+    }
+
+    private int removeOrphanParts(LocalDateTime threshold) {
+        if (!Files.isDirectory(stagingDir)) {
+            return 0;
+        }
+        long thresholdMillis = threshold.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int removed = 0;
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(stagingDir, "*" + PART_SUFFIX)) {
+            for (Path part : parts) {
+                String fileName = part.getFileName().toString();
+                UUID id;
+                try {
+                    id = UUID.fromString(fileName.substring(0, fileName.length() - PART_SUFFIX.length()));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (Files.getLastModifiedTime(part).toMillis() < thresholdMillis
+                        && !uploadSessionRepository.existsById(id)
+                        && Files.deleteIfExists(part)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return removed;
+    }
+
+    private UploadSessionEntity getSession(UUID id) {
+        return uploadSessionRepository.findById(id)
+                .orElseThrow(() -> new DocumentsException(ErrorType.NOT_FOUND));
+    }
+
+    /**
+     * Одновременно с одной сессией работает только один запрос: повторная отправка той же
+     * части, пока первая еще пишется (на любом экземпляре), получает ошибку смещения, а не портит файл.
+     */
+    private Lease acquire(UUID id) {
+        UUID writer = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        if (uploadSessionRepository.claim(id, writer, now, now.minus(uploadProperties.getLockTimeout())) == 0) {
+            getSession(id);
+            throw new DocumentsException(ErrorType.UPLOAD_OFFSET_MISMATCH);
+        }
+        return new Lease(id, writer);
+    }
+
+    private Path stagedPart(UUID id) {
+        Path part = partPath(id);
+        if (!Files.exists(part)) {
+            throw new DocumentsException(ErrorType.UPLOAD_STAGED_ELSEWHERE);
+        }
+        return part;
+    }
+
+    private Path partPath(UUID id) {
+        return stagingDir.resolve(id + PART_SUFFIX);
+    }
+
+    private UploadSessionDto toDto(UploadSessionEntity session) {
+        return toDto(session, session.getReceived(), session.getUpdatedAt());
+    }
+
+    private UploadSessionDto toDto(UploadSessionEntity session, long received, LocalDateTime updatedAt) {
+        return UploadSessionDto.builder()
+                .id(session.getId())
+                .name(session.getName())
+                .length(session.getLength())
+                .offset(received)
+                .expiresAt(updatedAt.plus(uploadProperties.getSessionTtl()))
+                .build();
+    }
+
+    /**
+     * Сессия, занятая запросом. Пока запрос пишет, он продлевает ее каждые lock-timeout / 2;
+     * если продлить не удалось, сессию занял другой запрос, и запись прекращается.
+     */
+    private final class Lease {
+        private final UUID id;
+        private final UUID writer;
+        private long renewedAt = System.nanoTime();
+
+        private Lease(UUID id, UUID writer) {
+            this.id = id;
+            this.writer = writer;
+        }
+
+        private void renewIfDue() {
+            if (System.nanoTime() - renewedAt < uploadProperties.getLockTimeout().toNanos() / 2) {
+                return;
+            }
+            if (uploadSessionRepository.renew(id, writer, LocalDateTime.now()) == 0) {
+                throw new DocumentsException(ErrorType.UPLOAD_OFFSET_MISMATCH);
+            }
+            renewedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Продлевает сессию, пока собранный файл читается при сохранении.
+     */
+    private static final class LeasedInputStream extends FilterInputStream {
+        private final Lease lease;
+
+        private LeasedInputStream(InputStream in, Lease lease) {
+            super(in);
+            this.lease = lease;
+        }
+
+        @Override
+        public int read() throws IOException {
+            lease.renewIfDue();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            lease.renewIfDue();
+            return super.read(b, off, len);
+        }
+    }
+}
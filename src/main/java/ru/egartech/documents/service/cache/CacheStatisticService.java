@@ -0,0 +1,48 @@
+package ru.egartech.documents.service.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Service;
+import ru.egartech.documents.dto.CacheStatisticDto;
+import ru.egartech.documents.service.storage.ContentCache;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatisticService {
+    private final CacheManager cacheManager;
+    private final ContentCache contentCache;
+
+    public List<CacheStatisticDto> getStatistic() {
+        Stream<CacheStatisticDto> metadataCaches = cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(this::unwrap)
+                .filter(CaffeineCache.class::isInstance)
+                .map(cache -> toDto((CaffeineCache) cache));
+        return Stream.concat(metadataCaches, Stream.ofNullable(contentCache.getStatistic())).toList();
+    }
+
+    private Cache unwrap(Cache cache) {
+        return cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache;
+    }
+
+    private CacheStatisticDto toDto(CaffeineCache cache) {
+        CacheStats stats = cache.getNativeCache().stats();
+        return CacheStatisticDto.builder()
+                .name(cache.getName())
+                .size(cache.getNativeCache().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
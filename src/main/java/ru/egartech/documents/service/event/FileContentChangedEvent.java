@@ -0,0 +1,6 @@
+package ru.egartech.documents.service.event;
+
+import java.util.UUID;
+
+public record FileContentChangedEvent(UUID fileId, UUID contentId, String contentType) {
+}
@@ -0,0 +1,145 @@
+package ru.egartech.documents.service.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.egartech.documents.config.ExtractionProperties;
+import ru.egartech.documents.dto.ExtractionStatusDto;
+import ru.egartech.documents.entity.FileTextEntity;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.repository.FileTextRepository;
+import ru.egartech.documents.service.event.FileContentChangedEvent;
+import ru.egartech.documents.service.event.FileDeletedEvent;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.utils.TextExtractor;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Извлекает текст из содержимого документов для полнотекстового поиска.
+ * Работает в отдельном ограниченном пуле после коммита транзакции загрузки
+ * и пропускает файлы, текст которых уже извлечен из текущей версии содержимого.
+ */
+@Slf4j
+@Service
+public class TextExtractionService {
+    private static final String PENDING_CONDITION =
+            "FROM files f LEFT JOIN file_texts t ON t.file_id = f.id " +
+                    "WHERE f.content_type IN (:types) AND f.content_id IS NOT NULL " +
+                    "AND (t.file_id IS NULL OR t.content_id <> f.content_id)";
+
+    private final FileRepository fileRepository;
+    private final FileTextRepository fileTextRepository;
+    private final ContentService contentService;
+    private final ThreadPoolTaskExecutor textExtractionExecutor;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExtractionProperties extractionProperties;
+    private final TextExtractor textExtractor;
+
+    public TextExtractionService(FileRepository fileRepository,
+                                 FileTextRepository fileTextRepository,
+                                 ContentService contentService,
+                                 ThreadPoolTaskExecutor textExtractionExecutor,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ExtractionProperties extractionProperties) {
+        this.fileRepository = fileRepository;
+        this.fileTextRepository = fileTextRepository;
+        this.contentService = contentService;
+        this.textExtractionExecutor = textExtractionExecutor;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.extractionProperties = extractionProperties;
+        this.textExtractor = new TextExtractor(extractionProperties.getMaxOfficeSize().toBytes());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onContentChanged(FileContentChangedEvent event) {
+        if (TextExtractor.isSupported(event.contentType())) {
+            schedule(event.fileId(), event.contentId(), event.contentType());
+        }
+    }
+
+    @EventListener
+    public void onFileDeleted(FileDeletedEvent event) {
+        fileTextRepository.deleteById(event.fileId());
+    }
+
+    public int reindex(int batchSize) {
+        List<FileContentChangedEvent> pending = namedParameterJdbcTemplate.query(
+                "SELECT f.id, f.content_id, f.content_type " + PENDING_CONDITION + " LIMIT :limit",
+                new MapSqlParameterSource("types", TextExtractor.getSupportedTypes()).addValue("limit", batchSize),
+                (rs, rowNum) -> new FileContentChangedEvent(
+                        rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getString(3)));
+        int scheduled = 0;
+        for (FileContentChangedEvent event : pending) {
+            if (schedule(event.fileId(), event.contentId(), event.contentType())) {
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    public ExtractionStatusDto getStatus() {
+        Long pending = namedParameterJdbcTemplate.queryForObject(
+                "SELECT COUNT(*) " + PENDING_CONDITION,
+                new MapSqlParameterSource("types", TextExtractor.getSupportedTypes()),
+                Long.class);
+        return ExtractionStatusDto.builder()
+                .queued(textExtractionExecutor.getQueueSize())
+                .active(textExtractionExecutor.getActiveCount())
+                .pending(pending != null ? pending : 0)
+                .build();
+    }
+
+    private boolean schedule(UUID fileId, UUID contentId, String contentType) {
+        try {
+            textExtractionExecutor.execute(() -> extract(fileId, contentId, contentType));
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("Text extraction queue is full, file {} will be picked up by reindex", fileId);
+            return false;
+        }
+    }
+
+    private void extract(UUID fileId, UUID contentId, String contentType) {
+        boolean upToDate = fileTextRepository.findById(fileId)
+                .map(text -> contentId.equals(text.getContentId()))
+                .orElse(false);
+        if (upToDate) {
+            return;
+        }
+        String text;
+        try (InputStream in = contentService.read(contentId)) {
+            text = textExtractor.extract(in, contentType, extractionProperties.getMaxTextLength());
+        } catch (Exception e) {
+            log.warn("Failed to extract text from file {}: {}", fileId, e.getMessage());
+            text = "";
+        }
+        String extractedText = text;
+        transactionTemplate.executeWithoutResult(status -> fileRepository.findById(fileId)
+                .filter(file -> contentId.equals(file.getContentId()))
+                .ifPresent(file -> {
+                    FileTextEntity fileText = new FileTextEntity();
+                    fileText.setFileId(fileId);
+                    fileText.setContentId(contentId);
+                    fileText.setText(extractedText);
+                    fileText.setExtractedAt(LocalDateTime.now());
+                    fileTextRepository.save(fileText);
+                }));
+        log.info("Extracted {} characters from file {}", extractedText.length(), fileId);
+    }
+}
@@ -6,8 +6,6 @@ import org.springframework.web.multipart.MultipartFile;
 import ru.egartech.documents.dto.FileResponseDto;
 import ru.egartech.documents.entity.FileEntity;
 
-import java.io.IOException;
-
 @Mapper
 public interface FileMapper {
     @Mapping(target = "lastModified", dateFormat = "HH:mm dd.MM.yyyy")
@@ -16,6 +14,11 @@ public interface FileMapper {
     @Mapping(target = "name", expression = "java(file.getOriginalFilename())")
     @Mapping(target = "contentType", expression = "java(file.getContentType())")
     @Mapping(target = "size", expression = "java(file.getSize())")
-    @Mapping(target = "data", expression = "java(file.getBytes())")
-    FileEntity toFileEntity(MultipartFile file) throws IOException;
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "description", ignore = true)
+    @Mapping(target = "lastModified", ignore = true)
+    @Mapping(target = "contentId", ignore = true)
+    @Mapping(target = "checksum", ignore = true)
+    @Mapping(target = "contentEncoding", ignore = true)
+    FileEntity toFileEntity(MultipartFile file);
 }
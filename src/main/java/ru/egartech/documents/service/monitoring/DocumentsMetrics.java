@@ -0,0 +1,133 @@
+package ru.egartech.documents.service.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.egartech.documents.utils.MimeTypeUtil;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Метрики передачи содержимого и формирования отчетов (documents.*). Задержки запросов,
+ * вызовы репозиториев, пулы потоков, кэши и соединения с базой снимает сам Spring Boot Actuator.
+ * Неизвестные типы содержимого сводятся в тег other, чтобы число рядов оставалось ограниченным.
+ */
+@Component
+public class DocumentsMetrics {
+    private static final String OTHER_CONTENT_TYPE = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter uploadedBytes;
+    private final Counter downloadedBytes;
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+
+    public DocumentsMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.uploadedBytes = transferredBytes(meterRegistry, Direction.UPLOAD);
+        this.downloadedBytes = transferredBytes(meterRegistry, Direction.DOWNLOAD);
+        activeTransfers(meterRegistry, Direction.UPLOAD, activeUploads);
+        activeTransfers(meterRegistry, Direction.DOWNLOAD, activeDownloads);
+    }
+
+    public Transfer startUpload() {
+        return new Transfer(activeUploads, uploadedBytes);
+    }
+
+    public Transfer startDownload() {
+        return new Transfer(activeDownloads, downloadedBytes);
+    }
+
+    /**
+     * Учитывает размер сохраненного содержимого в распределении по типам.
+     */
+    public void recordContentSize(String readableContentType, long size) {
+        String contentType = MimeTypeUtil.isKnown(readableContentType) ? readableContentType : OTHER_CONTENT_TYPE;
+        DistributionSummary.builder("documents.content.size")
+                .description("Размер сохраняемого содержимого по типам")
+                .baseUnit("bytes")
+                .tag("content_type", contentType)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(size);
+    }
+
+    public <T> T timeReport(String format, Supplier<T> render) {
+        return Timer.builder("documents.report.render")
+                .description("Время формирования документа отчета")
+                .tag("format", format)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(render);
+    }
+
+    /**
+     * Учитывает построчное удаление имен и текстов файлов снимаемой секции files.
+     */
+    public void recordRetentionRowDeletes(int rows, Duration duration) {
+        Timer.builder("documents.retention.row.deletes")
+                .description("Время построчного удаления имен и текстов файлов снимаемой секции")
+                .register(meterRegistry)
+                .record(duration);
+        DistributionSummary.builder("documents.retention.deleted.rows")
+                .description("Число строк file_names и file_texts, удаленных при снятии секции")
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    private static Counter transferredBytes(MeterRegistry meterRegistry, Direction direction) {
+        return Counter.builder("documents.transfer.bytes")
+                .description("Объем переданного содержимого")
+                .baseUnit("bytes")
+                .tag("direction", direction.tag)
+                .register(meterRegistry);
+    }
+
+    private static void activeTransfers(MeterRegistry meterRegistry, Direction direction, AtomicInteger active) {
+        Gauge.builder("documents.transfer.active", active, AtomicInteger::get)
+                .description("Число выполняющихся передач содержимого")
+                .tag("direction", direction.tag)
+                .register(meterRegistry);
+    }
+
+    private enum Direction {
+        UPLOAD("upload"),
+        DOWNLOAD("download");
+
+        private final String tag;
+
+        Direction(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Выполняющаяся передача: учитывается в documents.transfer.active до закрытия.
+     */
+    public static final class Transfer implements AutoCloseable {
+        private final AtomicInteger active;
+        private final Counter bytes;
+
+        private Transfer(AtomicInteger active, Counter bytes) {
+            this.active = active;
+            this.bytes = bytes;
+            active.incrementAndGet();
+        }
+
+        public void addBytes(long count) {
+            if (count > 0) {
+                bytes.increment(count);
+            }
+        }
+
+        @Override
+        public void close() {
+            active.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.egartech.documents.service.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.egartech.documents.dto.PinningStatisticDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Следит за закреплением виртуальных потоков на потоке-носителе (событие JFR
+ * jdk.VirtualThreadPinned): блокировка внутри synchronized или нативного кадра, например
+ * в JDBC-драйвере при чтении large object, занимает носитель так же, как обычный поток.
+ * Первое закрепление в каждом месте пишется в журнал со стеком, повторные только считаются.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(prefix = "documents.virtual-threads.pinning", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final List<String> APPLICATION_PACKAGES = List.of("ru.egartech.", "org.postgresql.", "org.hibernate.");
+    private static final int LOGGED_FRAMES = 20;
+
+    private final Duration threshold;
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private final Map<String, AtomicLong> pinnedSites = new ConcurrentHashMap<>();
+    private volatile RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${documents.virtual-threads.pinning.threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        recordingStream = stream;
+        log.info("Virtual thread pinning monitor started with threshold {} ms", threshold.toMillis());
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream stream = recordingStream;
+        recordingStream = null;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recordingStream != null;
+    }
+
+    public PinningStatisticDto getStatistic() {
+        return PinningStatisticDto.builder()
+                .thresholdMillis(threshold.toMillis())
+                .pinnedCount(pinnedCount.get())
+                .pinnedMillis(Duration.ofNanos(pinnedNanos.get()).toMillis())
+                .sites(pinnedSites.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get())))
+                .build();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        pinnedNanos.addAndGet(event.getDuration().toNanos());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::describe)
+                .filter(frame -> APPLICATION_PACKAGES.stream().anyMatch(frame::startsWith))
+                .findFirst()
+                .orElse(frames.isEmpty() ? "unknown" : describe(frames.get(0)));
+        if (pinnedSites.computeIfAbsent(site, key -> new AtomicLong()).getAndIncrement() == 0) {
+            log.warn("Virtual thread pinned for {} ms at {}:\n\t{}", event.getDuration().toMillis(), site,
+                    frames.stream().limit(LOGGED_FRAMES)
+                            .map(VirtualThreadPinningMonitor::describe)
+                            .collect(Collectors.joining("\n\t")));
+        } else {
+            log.debug("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.egartech.documents.service.report;
+
+import lombok.Getter;
+import ru.egartech.documents.utils.ReportFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@Getter
+class ReportJob {
+    private final UUID id = UUID.randomUUID();
+    private final LocalDate periodStart;
+    private final LocalDate periodEnd;
+    private final ReportFormat format;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+    private volatile UUID fileId;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    ReportJob(LocalDate periodStart, LocalDate periodEnd, ReportFormat format) {
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.format = format;
+    }
+
+    void start() {
+        status = ReportJobStatus.RUNNING;
+    }
+
+    void succeed(UUID fileId) {
+        this.fileId = fileId;
+        finish(ReportJobStatus.DONE);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(ReportJobStatus.FAILED);
+    }
+
+    boolean isFinished() {
+        return completion.isDone();
+    }
+
+    private void finish(ReportJobStatus status) {
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+        completion.complete(null);
+    }
+}
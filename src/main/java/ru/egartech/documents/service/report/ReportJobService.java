@@ -0,0 +1,133 @@
+package ru.egartech.documents.service.report;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.egartech.documents.config.ReportProperties;
+import ru.egartech.documents.dto.ReportJobDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.utils.ReportFormat;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь задач формирования документов со статистикой и выгрузок файлов. Одинаковые
+ * запросы за один период и формат, пока предыдущий не завершен, получают ту же задачу.
+ * Задачи хранятся в памяти экземпляра и удаляются через documents.report.job-ttl
+ * после завершения.
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+    private final FileService fileService;
+    private final ThreadPoolTaskExecutor reportExecutor;
+    private final ReportProperties reportProperties;
+    private final Map<UUID, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<ReportKey, ReportJob> activeJobs = new ConcurrentHashMap<>();
+
+    public ReportJobService(FileService fileService, ThreadPoolTaskExecutor reportExecutor,
+                            ReportProperties reportProperties) {
+        this.fileService = fileService;
+        this.reportExecutor = reportExecutor;
+        this.reportProperties = reportProperties;
+    }
+
+    public ReportJobDto submit(LocalDate periodStart, LocalDate periodEnd, ReportFormat format) {
+        if (periodStart.isAfter(periodEnd)) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Начальная дата не может быть позже конечной");
+        }
+        ReportKey reportKey = new ReportKey(periodStart, periodEnd, format);
+        ReportJob created = new ReportJob(periodStart, periodEnd, format);
+        ReportJob job = activeJobs.computeIfAbsent(reportKey, key -> {
+            jobs.put(created.getId(), created);
+            return created;
+        });
+        if (job == created) {
+            log.info("Submit {} report job {} with period: {} - {}", format, job.getId(), periodStart, periodEnd);
+            try {
+                reportExecutor.execute(() -> run(reportKey, job));
+            } catch (TaskRejectedException e) {
+                activeJobs.remove(reportKey, job);
+                jobs.remove(job.getId());
+                throw new DocumentsException(ErrorType.COMMON_ERROR, "Очередь формирования отчетов переполнена", e);
+            }
+        }
+        return toDto(job);
+    }
+
+    public ReportJobDto findById(UUID id) {
+        return toDto(getJob(id));
+    }
+
+    /**
+     * Ждет завершения задачи не дольше указанного времени (и не дольше documents.report.max-wait)
+     * и возвращает ее текущее состояние. Поток запроса на время ожидания не занимается.
+     */
+    public CompletableFuture<ReportJobDto> await(UUID id, Duration wait) {
+        ReportJob job = getJob(id);
+        Duration timeout = wait.compareTo(reportProperties.getMaxWait()) > 0 ? reportProperties.getMaxWait() : wait;
+        if (job.isFinished() || timeout.isZero() || timeout.isNegative()) {
+            return CompletableFuture.completedFuture(toDto(job));
+        }
+        return job.getCompletion().copy()
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> toDto(job));
+    }
+
+    @Scheduled(fixedDelayString = "${documents.report.cleanup-interval:PT5M}")
+    public void evictFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(reportProperties.getJobTtl());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private void run(ReportKey reportKey, ReportJob job) {
+        job.start();
+        try {
+            UUID fileId = job.getFormat() == ReportFormat.DOCX
+                    ? fileService.createStatisticDocument(job.getPeriodStart(), job.getPeriodEnd())
+                    : fileService.createExportDocument(job.getPeriodStart(), job.getPeriodEnd(), job.getFormat());
+            activeJobs.remove(reportKey, job);
+            job.succeed(fileId);
+        } catch (Exception e) {
+            log.error("Report job {} failed: {}", job.getId(), e.getMessage(), e);
+            activeJobs.remove(reportKey, job);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private ReportJob getJob(UUID id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new DocumentsException(ErrorType.NOT_FOUND);
+        }
+        return job;
+    }
+
+    private ReportJobDto toDto(ReportJob job) {
+        return ReportJobDto.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .periodStart(job.getPeriodStart())
+                .periodEnd(job.getPeriodEnd())
+                .format(job.getFormat())
+                .fileId(job.getFileId())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    private record ReportKey(LocalDate periodStart, LocalDate periodEnd, ReportFormat format) {
+    }
+}
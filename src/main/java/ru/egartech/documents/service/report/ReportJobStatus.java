@@ -0,0 +1,8 @@
+package ru.egartech.documents.service.report;
+
+public enum ReportJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
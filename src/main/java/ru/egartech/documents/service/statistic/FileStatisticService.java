@@ -0,0 +1,126 @@
+package ru.egartech.documents.service.statistic;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.egartech.documents.dto.ContentTypeStatisticDto;
+import ru.egartech.documents.dto.FileStatisticDto;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.repository.FileStatisticRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ведет сводную таблицу file_statistics: по одной строке на день и тип файла.
+ * Каждый файл учитывается в дне своего последнего изменения, поэтому при
+ * изменении файла он сначала вычитается из старой строки ({@link #remove}),
+ * а затем добавляется в новую ({@link #add}) в той же транзакции.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileStatisticService {
+    private static final String ADD_SQL =
+            "INSERT INTO file_statistics (day, content_type, file_count, total_size, max_last_modified) " +
+                    "VALUES (?, ?, 1, ?, ?) " +
+                    "ON CONFLICT (day, content_type) DO UPDATE SET " +
+                    "file_count = file_statistics.file_count + 1, " +
+                    "total_size = file_statistics.total_size + EXCLUDED.total_size, " +
+                    "max_last_modified = GREATEST(file_statistics.max_last_modified, EXCLUDED.max_last_modified)";
+    private static final String REMOVE_SQL =
+            "UPDATE file_statistics SET file_count = file_count - 1, total_size = total_size - ? " +
+                    "WHERE day = ? AND content_type = ?";
+    private static final String DELETE_EMPTY_SQL =
+            "DELETE FROM file_statistics WHERE day = ? AND content_type = ? AND file_count <= 0";
+    private static final String REFRESH_MAX_SQL =
+            "UPDATE file_statistics s SET max_last_modified = (" +
+                    "SELECT MAX(f.last_modified) FROM files f WHERE f.content_type = s.content_type " +
+                    "AND f.last_modified >= s.day AND f.last_modified < s.day + 1 AND f.id <> ?) " +
+                    "WHERE s.day = ? AND s.content_type = ? AND s.max_last_modified = ?";
+    private static final String REBUILD_SQL =
+            "INSERT INTO file_statistics (day, content_type, file_count, total_size, max_last_modified) " +
+                    "SELECT CAST(last_modified AS date), content_type, COUNT(*), COALESCE(SUM(size), 0), " +
+                    "MAX(last_modified) FROM files WHERE last_modified IS NOT NULL " +
+                    "GROUP BY CAST(last_modified AS date), content_type";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStatisticRepository fileStatisticRepository;
+
+    public void add(FileEntity file) {
+        if (file.getLastModified() == null) {
+            return;
+        }
+        jdbcTemplate.update(ADD_SQL, file.getLastModified().toLocalDate(), file.getContentType(),
+                sizeOf(file), Timestamp.valueOf(file.getLastModified()));
+    }
+
+    public void addAll(List<FileEntity> files) {
+        List<Object[]> batchArgs = files.stream()
+                .filter(file -> file.getLastModified() != null)
+                .map(file -> new Object[]{file.getLastModified().toLocalDate(), file.getContentType(),
+                        sizeOf(file), Timestamp.valueOf(file.getLastModified())})
+                .toList();
+        jdbcTemplate.batchUpdate(ADD_SQL, batchArgs);
+    }
+
+    /**
+     * Вычитает файл из статистики по его текущим (еще не измененным) значениям.
+     */
+    public void remove(FileEntity file) {
+        if (file.getLastModified() == null) {
+            return;
+        }
+        LocalDate day = file.getLastModified().toLocalDate();
+        jdbcTemplate.update(REMOVE_SQL, sizeOf(file), day, file.getContentType());
+        if (jdbcTemplate.update(DELETE_EMPTY_SQL, day, file.getContentType()) == 0) {
+            jdbcTemplate.update(REFRESH_MAX_SQL, file.getId(), day, file.getContentType(),
+                    Timestamp.valueOf(file.getLastModified()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public FileStatisticDto getStatistic(LocalDate periodStart, LocalDate periodEnd) {
+        List<FileStatisticRepository.ContentTypeTotals> totals =
+                fileStatisticRepository.sumByContentType(periodStart, periodEnd);
+        return FileStatisticDto.builder()
+                .periodStart(periodStart)
+                .periodEnd(periodEnd)
+                .totalFiles(totals.stream().mapToLong(FileStatisticRepository.ContentTypeTotals::getFileCount).sum())
+                .totalSize(totals.stream().mapToLong(FileStatisticRepository.ContentTypeTotals::getTotalSize).sum())
+                .lastModified(totals.stream()
+                        .map(FileStatisticRepository.ContentTypeTotals::getLastModified)
+                        .filter(Objects::nonNull)
+                        .max(Comparator.naturalOrder())
+                        .orElse(null))
+                .types(totals.stream()
+                        .map(type -> ContentTypeStatisticDto.builder()
+                                .contentType(type.getContentType())
+                                .files(type.getFileCount())
+                                .totalSize(type.getTotalSize())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Пересчитывает сводную таблицу по files. TRUNCATE держит блокировку таблицы
+     * до коммита, поэтому параллельные изменения применятся уже к новым строкам.
+     */
+    @Transactional
+    public int rebuild() {
+        jdbcTemplate.execute("TRUNCATE file_statistics");
+        int rows = jdbcTemplate.update(REBUILD_SQL);
+        log.info("File statistics rebuilt: {} rows", rows);
+        return rows;
+    }
+
+    private long sizeOf(FileEntity file) {
+        return file.getSize() != null ? file.getSize() : 0;
+    }
+}
@@ -0,0 +1,155 @@
+package ru.egartech.documents.service.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.egartech.documents.config.CacheProperties;
+import ru.egartech.documents.dto.CacheStatisticDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш раскодированного содержимого небольших часто скачиваемых файлов. Ключом служит contentId:
+ * содержимое под ним неизменно (обновление файла всегда создает новый contentId),
+ * поэтому инвалидация не нужна, а удаленное содержимое вытесняется явно.
+ * Байты хранятся в direct-буферах вне кучи; бюджет считается по их размеру,
+ * а фактически память ограничивается еще и -XX:MaxDirectMemorySize.
+ */
+@Slf4j
+@Component
+public class ContentCache {
+    public static final String NAME = "content";
+
+    private final Cache<UUID, ByteBuffer> cache;
+    private final long maxEntrySize;
+    private final LongAdder rejected = new LongAdder();
+    private final ConcurrentMap<UUID, CompletableFuture<ByteBuffer>> loading = new ConcurrentHashMap<>();
+
+    public ContentCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        CacheProperties.Content properties = cacheProperties.getContent();
+        this.maxEntrySize = Math.min(properties.getMaxEntrySize().toBytes(), Integer.MAX_VALUE);
+        this.cache = properties.isEnabled()
+                ? Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((UUID contentId, ByteBuffer content) -> content.capacity())
+                .expireAfterAccess(properties.getTtl())
+                .recordStats()
+                .build()
+                : null;
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        }
+    }
+
+    /**
+     * Возвращает содержимое из кэша, загружая его при промахе, или null, если
+     * содержимое такого размера в кэш не допускается. Буфер доступен только для чтения.
+     * Загрузка идет вне Cache.get(key, loader): тот вызывает загрузчик под блокировкой
+     * корзины ConcurrentHashMap, и чтение из хранилища закрепляло бы виртуальный поток
+     * на носителе. Одновременные промахи по одному ключу ждут одну загрузку в {@link #loading}.
+     */
+    public ByteBuffer get(UUID contentId, long size, ContentLoader loader) {
+        if (cache == null) {
+            return null;
+        }
+        if (size > maxEntrySize) {
+            rejected.increment();
+            return null;
+        }
+        ByteBuffer content = cache.getIfPresent(contentId);
+        if (content == null) {
+            content = loadOnce(contentId, (int) size, loader);
+        }
+        return content.asReadOnlyBuffer();
+    }
+
+    public void evict(UUID contentId) {
+        if (cache != null) {
+            cache.invalidate(contentId);
+        }
+    }
+
+    public CacheStatisticDto getStatistic() {
+        if (cache == null) {
+            return null;
+        }
+        CacheStats stats = cache.stats();
+        return CacheStatisticDto.builder()
+                .name(NAME)
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .weightedSize(cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0))
+                        .orElse(0L))
+                .evictionWeight(stats.evictionWeight())
+                .rejectedCount(rejected.sum())
+                .build();
+    }
+
+    private ByteBuffer loadOnce(UUID contentId, int size, ContentLoader loader) {
+        CompletableFuture<ByteBuffer> pending = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> inFlight = loading.putIfAbsent(contentId, pending);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // загрузка могла завершиться между промахом и регистрацией в loading;
+            // повторная проверка не должна считаться вторым промахом в статистике
+            ByteBuffer content = cache.policy().getIfPresentQuietly(contentId);
+            if (content == null) {
+                content = load(contentId, size, loader);
+                cache.put(contentId, content);
+            }
+            pending.complete(content);
+            return content;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(contentId, pending);
+        }
+    }
+
+    private ByteBuffer load(UUID contentId, int size, ContentLoader loader) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        try (InputStream in = loader.open();
+             ReadableByteChannel channel = Channels.newChannel(in)) {
+            int read = 0;
+            while (buffer.hasRemaining() && read != -1) {
+                read = channel.read(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        log.debug("Cached content {} ({} bytes)", contentId, buffer.remaining());
+        return buffer;
+    }
+
+    @FunctionalInterface
+    public interface ContentLoader {
+        InputStream open() throws IOException;
+    }
+}
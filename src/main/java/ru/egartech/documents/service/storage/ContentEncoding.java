@@ -0,0 +1,43 @@
+package ru.egartech.documents.service.storage;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.egartech.documents.utils.MimeTypeUtil;
+
+import java.io.InputStream;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Кодирование содержимого в хранилище. Значения совпадают с HTTP content-coding,
+ * поэтому закодированные байты можно отдавать клиенту как есть: deflate здесь —
+ * zlib-поток (RFC 1950), именно его HTTP понимает под "deflate".
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ContentEncoding {
+    IDENTITY("identity"),
+    DEFLATE("deflate");
+
+    private final String value;
+
+    public static ContentEncoding fromValue(String value) {
+        return DEFLATE.value.equals(value) ? DEFLATE : IDENTITY;
+    }
+
+    /**
+     * Сжимаются только хорошо сжимаемые форматы: текст, разметка и старые
+     * двоичные форматы Office. Уже сжатые и неизвестные типы хранятся как есть.
+     */
+    public static ContentEncoding forContentType(String readableMimeType) {
+        return MimeTypeUtil.isCompressible(readableMimeType) ? DEFLATE : IDENTITY;
+    }
+
+    public InputStream encode(InputStream inputStream) {
+        return this == DEFLATE ? new DeflaterInputStream(inputStream) : inputStream;
+    }
+
+    public InputStream decode(InputStream inputStream) {
+        return this == DEFLATE ? new InflaterInputStream(inputStream) : inputStream;
+    }
+}
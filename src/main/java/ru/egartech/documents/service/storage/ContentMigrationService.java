@@ -0,0 +1,63 @@
+package ru.egartech.documents.service.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.egartech.documents.dto.ContentMigrationResultDto;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Переносит содержимое из таблицы file_contents основной базы в основное хранилище
+ * (файловое или базы содержимого) порциями. Сервис продолжает работать во время переноса:
+ * пока копия не удалена из основной базы, чтение обслуживает {@link FallbackContentStore}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ContentMigrationService {
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseContentStore databaseContentStore;
+    private final ContentStore targetContentStore;
+
+    /**
+     * Переносит до batchSize содержимых с id больше after. Содержимое, которое не удалось
+     * перенести, остается в основной базе и возвращается в failed, а обход идет дальше:
+     * повторяющаяся ошибка не останавливает перенос остального.
+     */
+    public ContentMigrationResultDto migrate(int batchSize, UUID after) {
+        List<UUID> contentIds = after == null
+                ? jdbcTemplate.queryForList("SELECT id FROM file_contents ORDER BY id LIMIT ?", UUID.class, batchSize)
+                : jdbcTemplate.queryForList("SELECT id FROM file_contents WHERE id > ? ORDER BY id LIMIT ?",
+                UUID.class, after, batchSize);
+        int moved = 0;
+        List<UUID> failed = new ArrayList<>();
+        for (UUID contentId : contentIds) {
+            try {
+                if (!targetContentStore.exists(contentId)) {
+                    try (InputStream in = databaseContentStore.read(contentId)) {
+                        targetContentStore.write(contentId, in);
+                    }
+                }
+                if (databaseContentStore.exists(contentId)) {
+                    databaseContentStore.delete(contentId);
+                    moved++;
+                } else {
+                    targetContentStore.delete(contentId);
+                }
+            } catch (Exception e) {
+                log.error("Failed to migrate content {}: {}", contentId, e.getMessage(), e);
+                failed.add(contentId);
+            }
+        }
+        log.info("Migrated {} of {} contents out of the primary database, {} failed",
+                moved, contentIds.size(), failed.size());
+        return ContentMigrationResultDto.builder()
+                .moved(moved)
+                .failed(failed)
+                .next(contentIds.size() < batchSize ? null : contentIds.get(contentIds.size() - 1))
+                .build();
+    }
+}
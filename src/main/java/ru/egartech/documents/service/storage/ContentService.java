@@ -0,0 +1,300 @@
+package ru.egartech.documents.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.egartech.documents.dto.StorageStatisticDto;
+import ru.egartech.documents.service.monitoring.DocumentsMetrics;
+import ru.egartech.documents.utils.ChecksumUtil;
+import ru.egartech.documents.utils.CountingInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Хранит содержимое с дедупликацией по SHA-256: одинаковые байты под разными именами
+ * занимают место один раз, а в content_references ведется счетчик ссылок.
+ * Содержимое без строки в content_references принадлежит единственному файлу
+ * (загружено до появления дедупликации).
+ * Хорошо сжимаемые типы хранятся сжатыми ({@link ContentEncoding}); контрольная
+ * сумма и размер всегда относятся к исходным байтам.
+ */
+@Slf4j
+@Service
+public class ContentService {
+    private static final String ACQUIRE_SQL =
+            "INSERT INTO content_references (content_id, checksum, size, stored_size, encoding, ref_count) " +
+                    "VALUES (?, ?, ?, ?, ?, 1) " +
+                    "ON CONFLICT (checksum) DO UPDATE SET ref_count = content_references.ref_count + 1 " +
+                    "RETURNING content_id, encoding";
+    private static final String RELEASE_SQL =
+            "UPDATE content_references SET ref_count = ref_count - 1 WHERE content_id = ? RETURNING ref_count";
+
+    /**
+     * Имя отсоединенной секции files (files_pYYYYMM): подставляется в SQL как идентификатор,
+     * поэтому другие имена не принимаются.
+     */
+    private static final Pattern FILE_TABLE = Pattern.compile("files_p\\d{6}");
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final ContentStore contentStore;
+    private final ContentCache contentCache;
+    private final DocumentsMetrics documentsMetrics;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate cleanupTransactionTemplate;
+
+    public ContentService(ContentStore contentStore, ContentCache contentCache, DocumentsMetrics documentsMetrics,
+                          JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.contentStore = contentStore;
+        this.contentCache = contentCache;
+        this.documentsMetrics = documentsMetrics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cleanupTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.cleanupTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Сохраняет поток, сжимая его на лету, если тип файла хорошо сжимается.
+     */
+    public StoredContent store(InputStream inputStream, String contentType) throws IOException {
+        UUID contentId = UUID.randomUUID();
+        ContentEncoding encoding = ContentEncoding.forContentType(contentType);
+        MessageDigest digest = ChecksumUtil.newDigest();
+        long storedSize;
+        CountingInputStream counter = new CountingInputStream(new DigestInputStream(inputStream, digest));
+        try (DocumentsMetrics.Transfer transfer = documentsMetrics.startUpload();
+             InputStream in = encoding.encode(counter)) {
+            storedSize = contentStore.write(contentId, in);
+            transfer.addBytes(counter.getCount());
+        }
+        deleteOnRollback(contentId);
+        long size = counter.getCount();
+        documentsMetrics.recordContentSize(contentType, size);
+        String checksum = ChecksumUtil.toHex(digest.digest());
+
+        StoredContent stored = jdbcTemplate.queryForObject(ACQUIRE_SQL,
+                (rs, rowNum) -> new StoredContent(rs.getObject(1, UUID.class), size, checksum,
+                        ContentEncoding.fromValue(rs.getString(2))),
+                contentId, checksum, size, storedSize, encoding.getValue());
+        if (!contentId.equals(stored.contentId())) {
+            log.info("Content {} duplicates {}, keeping the existing copy", contentId, stored.contentId());
+            contentStore.delete(contentId);
+        } else if (encoding != ContentEncoding.IDENTITY) {
+            log.info("Content {} stored as {}: {} -> {} bytes", contentId, encoding.getValue(), size, storedSize);
+        }
+        return stored;
+    }
+
+    /**
+     * Открывает исходные (раскодированные) байты содержимого.
+     */
+    public InputStream read(UUID contentId, ContentEncoding encoding) {
+        return encoding.decode(contentStore.read(contentId));
+    }
+
+    public InputStream read(UUID contentId) {
+        return read(contentId, getEncoding(contentId));
+    }
+
+    /**
+     * Передает диапазон исходных байт содержимого в канал. Небольшое содержимое
+     * отдается из {@link ContentCache} уже раскодированным.
+     */
+    public long transferTo(UUID contentId, ContentEncoding encoding, long size, long offset, long length,
+                           WritableByteChannel target) throws IOException {
+        try (DocumentsMetrics.Transfer transfer = documentsMetrics.startDownload()) {
+            long transferred = transferDecoded(contentId, encoding, size, offset, length, target);
+            transfer.addBytes(transferred);
+            return transferred;
+        }
+    }
+
+    private long transferDecoded(UUID contentId, ContentEncoding encoding, long size, long offset, long length,
+                                 WritableByteChannel target) throws IOException {
+        ByteBuffer cached = contentCache.get(contentId, size, () -> read(contentId, encoding));
+        if (cached != null) {
+            // буфер может оказаться короче size, если содержимое не совпало с записанным размером
+            int end = (int) Math.min(offset + length, cached.limit());
+            cached.position((int) Math.min(offset, end)).limit(end);
+            long transferred = cached.remaining();
+            while (cached.hasRemaining()) {
+                target.write(cached);
+            }
+            return transferred;
+        }
+        if (encoding == ContentEncoding.IDENTITY) {
+            return contentStore.transferTo(contentId, offset, length, target);
+        }
+        try (InputStream in = read(contentId, encoding)) {
+            in.skipNBytes(offset);
+            return copy(in, Channels.newOutputStream(target), length);
+        }
+    }
+
+    /**
+     * Передает содержимое в том виде, в каком оно лежит в хранилище (для ответа
+     * с Content-Encoding без перекодирования).
+     */
+    public long transferEncoded(UUID contentId, WritableByteChannel target) throws IOException {
+        try (DocumentsMetrics.Transfer transfer = documentsMetrics.startDownload()) {
+            long transferred = contentStore.transferTo(contentId, 0, Long.MAX_VALUE, target);
+            transfer.addBytes(transferred);
+            return transferred;
+        }
+    }
+
+    /**
+     * Открывает диапазон байт в том виде, в каком они лежат в хранилище.
+     */
+    public InputStream readStored(UUID contentId, long offset, long length) {
+        return contentStore.read(contentId, offset, length);
+    }
+
+    public Optional<Path> localPath(UUID contentId) {
+        return contentStore.localPath(contentId);
+    }
+
+    public ContentEncoding getEncoding(UUID contentId) {
+        List<String> encodings = jdbcTemplate.queryForList(
+                "SELECT encoding FROM content_references WHERE content_id = ?", String.class, contentId);
+        return encodings.isEmpty() ? ContentEncoding.IDENTITY : ContentEncoding.fromValue(encodings.get(0));
+    }
+
+    public void release(UUID contentId) {
+        if (contentId == null) {
+            return;
+        }
+        Integer remaining = jdbcTemplate.query(RELEASE_SQL,
+                rs -> rs.next() ? rs.getInt(1) : null, contentId);
+        if (remaining == null) {
+            deleteAfterCommit(contentId);
+        } else if (remaining <= 0) {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM content_references WHERE content_id = ? AND ref_count <= 0", contentId);
+            if (deleted > 0) {
+                deleteAfterCommit(contentId);
+            }
+        }
+    }
+
+    /**
+     * Снимает ссылки всех файлов таблицы (отсоединенной секции files) за три запроса
+     * и удаляет содержимое, на которое больше не ссылается ни один файл.
+     * Возвращает число удаляемых содержимых.
+     */
+    public int releaseAll(String fileTable) {
+        if (!FILE_TABLE.matcher(fileTable).matches()) {
+            throw new IllegalArgumentException("Not a files partition: " + fileTable);
+        }
+        List<UUID> unreferenced = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT f.content_id FROM " + fileTable + " f WHERE f.content_id IS NOT NULL " +
+                        "AND NOT EXISTS (SELECT 1 FROM content_references r WHERE r.content_id = f.content_id)",
+                UUID.class));
+        jdbcTemplate.update("UPDATE content_references r SET ref_count = r.ref_count - f.files " +
+                "FROM (SELECT content_id, COUNT(*) AS files FROM " + fileTable + " GROUP BY content_id) f " +
+                "WHERE r.content_id = f.content_id");
+        unreferenced.addAll(jdbcTemplate.queryForList(
+                "DELETE FROM content_references WHERE ref_count <= 0 " +
+                        "AND content_id IN (SELECT content_id FROM " + fileTable + ") RETURNING content_id",
+                UUID.class));
+        unreferenced.forEach(this::deleteAfterCommit);
+        return unreferenced.size();
+    }
+
+    public StorageStatisticDto getStatistic() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COUNT(DISTINCT f.content_id), COALESCE(SUM(f.size), 0), " +
+                        "(SELECT COALESCE(SUM(COALESCE(r.stored_size, u.size)), 0) " +
+                        "FROM (SELECT DISTINCT content_id, size FROM files) u " +
+                        "LEFT JOIN content_references r ON r.content_id = u.content_id) " +
+                        "FROM files f",
+                (rs, rowNum) -> {
+                    long logicalSize = rs.getLong(3);
+                    long physicalSize = rs.getLong(4);
+                    return StorageStatisticDto.builder()
+                            .files(rs.getLong(1))
+                            .contents(rs.getLong(2))
+                            .logicalSize(logicalSize)
+                            .physicalSize(physicalSize)
+                            .deduplicationRatio(physicalSize == 0 ? 1.0 : (double) logicalSize / physicalSize)
+                            .build();
+                });
+    }
+
+    private long copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return length - remaining;
+    }
+
+    private void deleteOnRollback(UUID contentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        deleteQuietly(contentId);
+                    }
+                }
+            });
+        }
+    }
+
+    private void deleteAfterCommit(UUID contentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            contentStore.delete(contentId);
+            contentCache.evict(contentId);
+        } else if (contentStore.isTransactional()) {
+            // large object удаляется той же транзакцией, что и ссылка на него
+            contentStore.delete(contentId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contentCache.evict(contentId);
+                }
+            });
+        } else {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteQuietly(contentId);
+                }
+            });
+        }
+    }
+
+    private void deleteQuietly(UUID contentId) {
+        try {
+            cleanupTransactionTemplate.executeWithoutResult(status -> contentStore.delete(contentId));
+            contentCache.evict(contentId);
+        } catch (RuntimeException e) {
+            log.error("Failed to delete content {}: {}", contentId, e.getMessage(), e);
+        }
+    }
+}
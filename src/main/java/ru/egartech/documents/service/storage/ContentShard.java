@@ -0,0 +1,15 @@
+package ru.egartech.documents.service.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * База данных, хранящая часть содержимого при documents.storage.type: sharded.
+ */
+public record ContentShard(String name,
+                           HikariDataSource dataSource,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           DatabaseContentStore store) {
+}
@@ -0,0 +1,73 @@
+package ru.egartech.documents.service.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Базы данных, между которыми распределено содержимое. База выбирается по contentId
+ * функцией jump consistent hash: при добавлении N+1-й базы на нее переезжает лишь 1/(N+1)
+ * содержимого, остальное остается на месте. Новые базы добавляются только в конец
+ * documents.storage.shards: пока {@link ShardRebalanceService} не перенес содержимое,
+ * оно читается с базы, которую выбирал хеш при меньшем числе баз.
+ */
+public class ContentShards implements AutoCloseable {
+    private static final long JUMP_MULTIPLIER = 2862933555777941757L;
+
+    private final List<ContentShard> shards;
+
+    public ContentShards(List<ContentShard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("documents.storage.shards must not be empty for sharded storage");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public ContentShard shardFor(UUID contentId) {
+        return shards.get(jumpHash(key(contentId), shards.size()));
+    }
+
+    /**
+     * Базы, на которых может лежать содержимое: сначала текущая, затем те, что выбирал хеш
+     * при меньшем числе баз. При добавлении базы содержимое переезжает только на нее,
+     * поэтому других мест быть не может.
+     */
+    public List<ContentShard> candidatesFor(UUID contentId) {
+        long key = key(contentId);
+        List<ContentShard> candidates = new ArrayList<>();
+        for (int buckets = shards.size(); buckets > 0; buckets--) {
+            ContentShard shard = shards.get(jumpHash(key, buckets));
+            if (!candidates.contains(shard)) {
+                candidates.add(shard);
+            }
+        }
+        return candidates;
+    }
+
+    public List<ContentShard> getShards() {
+        return shards;
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(shard -> shard.dataSource().close());
+    }
+
+    private static long key(UUID contentId) {
+        return contentId.getMostSignificantBits() ^ contentId.getLeastSignificantBits();
+    }
+
+    /**
+     * Lamping, Veach. A Fast, Minimal Memory, Consistent Hash Algorithm.
+     */
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * JUMP_MULTIPLIER + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
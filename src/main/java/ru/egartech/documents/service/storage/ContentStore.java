@@ -0,0 +1,52 @@
+package ru.egartech.documents.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Хранилище содержимого файлов. Метаданные остаются в таблице files,
+ * а сами байты лежат отдельно и адресуются по contentId.
+ */
+public interface ContentStore {
+    /**
+     * Записывает поток целиком, не буферизуя его в памяти, и возвращает число записанных байт.
+     */
+    long write(UUID contentId, InputStream inputStream) throws IOException;
+
+    InputStream read(UUID contentId, long offset, long length);
+
+    default InputStream read(UUID contentId) {
+        return read(contentId, 0, Long.MAX_VALUE);
+    }
+
+    default long transferTo(UUID contentId, long offset, long length, WritableByteChannel target) throws IOException {
+        try (InputStream in = read(contentId, offset, length)) {
+            return in.transferTo(Channels.newOutputStream(target));
+        }
+    }
+
+    /**
+     * Файл с содержимым на локальном диске, если хранилище его так держит. По нему
+     * содержимое можно читать без блокировки потока через AsynchronousFileChannel.
+     */
+    default Optional<Path> localPath(UUID contentId) {
+        return Optional.empty();
+    }
+
+    boolean exists(UUID contentId);
+
+    void delete(UUID contentId);
+
+    /**
+     * Удаление выполняется в текущей транзакции и откатывается вместе с ней, поэтому
+     * его не нужно откладывать до фиксации.
+     */
+    default boolean isTransactional() {
+        return false;
+    }
+}
@@ -0,0 +1,170 @@
+package ru.egartech.documents.service.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Хранит содержимое в large object PostgreSQL, ссылка на который лежит в file_contents.data.
+ * Large object не удаляется вместе со строкой сам по себе, поэтому строка и объект
+ * создаются и удаляются только вместе, в одной транзакции.
+ */
+@Component
+public class DatabaseContentStore implements ContentStore {
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final String DELETE_SQL =
+            "WITH deleted AS (DELETE FROM file_contents WHERE id = ? RETURNING id, data) " +
+                    "SELECT lo_unlink(d.data) FROM deleted d " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM file_contents c WHERE c.data = d.data AND c.id <> d.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatabaseContentStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Пишет в транзакции вызывающего, а без нее в собственной: иначе созданный large object
+     * был бы виден без строки в file_contents и мог попасть под {@link LargeObjectCollector}.
+     */
+    @Override
+    public long write(UUID contentId, InputStream inputStream) throws IOException {
+        // транзакция другой базы (основной при записи в сегмент) эту запись не покрывает
+        if (TransactionSynchronizationManager.hasResource(jdbcTemplate.getDataSource())) {
+            return writeLargeObject(contentId, inputStream);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return writeLargeObject(contentId, inputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeLargeObject(UUID contentId, InputStream inputStream) throws IOException {
+        Long oid = jdbcTemplate.queryForObject("SELECT lo_create(0)", Long.class);
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long offset = 0;
+            int read;
+            while ((read = inputStream.readNBytes(buffer, 0, buffer.length)) > 0) {
+                byte[] chunk = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+                jdbcTemplate.query("SELECT lo_put(?::oid, ?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                        oid, offset, chunk);
+                offset += read;
+            }
+            jdbcTemplate.update("INSERT INTO file_contents (id, data) VALUES (?, ?::oid)", contentId, oid);
+            return offset;
+        } catch (IOException | RuntimeException e) {
+            // Транзакция вызывающего может продолжиться (пакетная загрузка пропускает
+            // сбойный элемент), поэтому недописанный large object удаляется сразу.
+            try {
+                jdbcTemplate.query("SELECT lo_unlink(?::oid)", (ResultSetExtractor<Void>) rs -> null, oid);
+            } catch (RuntimeException unlinkException) {
+                e.addSuppressed(unlinkException);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream read(UUID contentId, long offset, long length) {
+        if (!exists(contentId)) {
+            throw new DocumentsException(ErrorType.NOT_FOUND);
+        }
+        return new LargeObjectInputStream(contentId, offset, length);
+    }
+
+    @Override
+    public boolean exists(UUID contentId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM file_contents WHERE id = ?)", Boolean.class, contentId));
+    }
+
+    @Override
+    public void delete(UUID contentId) {
+        jdbcTemplate.query(DELETE_SQL, (ResultSetExtractor<Void>) rs -> null, contentId);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    /**
+     * Читает large object кусками через lo_get, не поднимая весь объект в память
+     * и не требуя открытой транзакции между чтениями.
+     */
+    private class LargeObjectInputStream extends InputStream {
+        private final UUID contentId;
+        private long position;
+        private long remaining;
+        private byte[] chunk = new byte[0];
+        private int chunkPosition;
+
+        private LargeObjectInputStream(UUID contentId, long offset, long length) {
+            this.contentId = contentId;
+            this.position = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() {
+            if (chunkPosition == chunk.length && !fetchChunk()) {
+                return -1;
+            }
+            return chunk[chunkPosition++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (chunkPosition == chunk.length && !fetchChunk()) {
+                return -1;
+            }
+            int count = Math.min(len, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, buffer, off, count);
+            chunkPosition += count;
+            return count;
+        }
+
+        private boolean fetchChunk() {
+            if (remaining <= 0) {
+                return false;
+            }
+            int size = (int) Math.min(CHUNK_SIZE, remaining);
+            byte[] data = jdbcTemplate.queryForObject(
+                    "SELECT lo_get(data, ?, ?) FROM file_contents WHERE id = ?",
+                    byte[].class, position, size, contentId);
+            if (data == null || data.length == 0) {
+                remaining = 0;
+                return false;
+            }
+            chunk = data;
+            chunkPosition = 0;
+            position += data.length;
+            remaining -= data.length;
+            return true;
+        }
+    }
+}
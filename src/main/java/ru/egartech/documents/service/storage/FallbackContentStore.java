@@ -0,0 +1,55 @@
+package ru.egartech.documents.service.storage;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Пишет только в основное хранилище, а читает из резервного то, что ещё не перенесено.
+ * Позволяет переносить содержимое между хранилищами без остановки сервиса.
+ */
+@RequiredArgsConstructor
+public class FallbackContentStore implements ContentStore {
+    private final ContentStore primary;
+    private final ContentStore fallback;
+
+    @Override
+    public long write(UUID contentId, InputStream inputStream) throws IOException {
+        return primary.write(contentId, inputStream);
+    }
+
+    @Override
+    public InputStream read(UUID contentId, long offset, long length) {
+        return storeFor(contentId).read(contentId, offset, length);
+    }
+
+    @Override
+    public long transferTo(UUID contentId, long offset, long length, WritableByteChannel target) throws IOException {
+        return storeFor(contentId).transferTo(contentId, offset, length, target);
+    }
+
+    @Override
+    public Optional<Path> localPath(UUID contentId) {
+        return storeFor(contentId).localPath(contentId);
+    }
+
+    @Override
+    public boolean exists(UUID contentId) {
+        return primary.exists(contentId) || fallback.exists(contentId);
+    }
+
+    @Override
+    public void delete(UUID contentId) {
+        primary.delete(contentId);
+        fallback.delete(contentId);
+    }
+
+    private ContentStore storeFor(UUID contentId) {
+        return primary.exists(contentId) ? primary : fallback;
+    }
+}
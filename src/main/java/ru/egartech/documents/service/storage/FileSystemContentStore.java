@@ -0,0 +1,155 @@
+package ru.egartech.documents.service.storage;
+
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Хранит содержимое на локальном диске в каталогах вида ab/cd/&lt;contentId&gt;.
+ * Запись идёт во временный файл рядом с целевым и завершается атомарным переименованием,
+ * поэтому читатели никогда не видят частично записанный файл.
+ */
+public class FileSystemContentStore implements ContentStore {
+    private final Path rootDir;
+
+    public FileSystemContentStore(Path rootDir) {
+        this.rootDir = rootDir.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public long write(UUID contentId, InputStream inputStream) throws IOException {
+        Path target = resolve(contentId);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), contentId.toString(), ".tmp");
+        try {
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                size = inputStream.transferTo(out);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream read(UUID contentId, long offset, long length) {
+        FileChannel channel = open(contentId);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new DocumentsException(ErrorType.COMMON_ERROR, e);
+        }
+        return new LimitedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public long transferTo(UUID contentId, long offset, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = open(contentId)) {
+            long end = offset + Math.min(length, Math.max(0, channel.size() - offset));
+            long position = offset;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return position - offset;
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(UUID contentId) {
+        Path path = resolve(contentId);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(UUID contentId) {
+        return Files.exists(resolve(contentId));
+    }
+
+    @Override
+    public void delete(UUID contentId) {
+        try {
+            Files.deleteIfExists(resolve(contentId));
+        } catch (IOException e) {
+            throw new DocumentsException(ErrorType.COMMON_ERROR, e);
+        }
+    }
+
+    private Path resolve(UUID contentId) {
+        String name = contentId.toString();
+        return rootDir.resolve(name.substring(0, 2)).resolve(name.substring(2, 4)).resolve(name);
+    }
+
+    private FileChannel open(UUID contentId) {
+        try {
+            return FileChannel.open(resolve(contentId), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new DocumentsException(ErrorType.NOT_FOUND, e);
+        } catch (IOException e) {
+            throw new DocumentsException(ErrorType.COMMON_ERROR, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // канал открыт только на чтение
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int result = super.read();
+            if (result != -1) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int result = super.read(b, off, (int) Math.min(len, remaining));
+            if (result > 0) {
+                remaining -= result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ru.egartech.documents.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.egartech.documents.config.StorageProperties;
+import ru.egartech.documents.dto.LargeObjectGcResultDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Удаляет large object, на которые не ссылается ни одна строка file_contents: остатки
+ * удалений, выполненных до того, как {@link DatabaseContentStore} стал удалять объект вместе
+ * со строкой, и объекты, брошенные при сбоях. Обходит pg_largeobject_metadata по возрастанию
+ * oid порциями; каждая порция — короткая транзакция, между порциями выдерживается пауза.
+ * Обходятся основная база и все базы {@link ContentShards}. Сборку одновременно ведет
+ * только один экземпляр сервиса (advisory lock).
+ * Считается, что все large object базы принадлежат сервису.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "documents.storage.large-object-gc", name = "enabled", matchIfMissing = true)
+public class LargeObjectCollector {
+    private static final long LOCK_KEY = 0x646f635f6c6f6763L;
+    private static final String ORPHANS_CTE =
+            "WITH orphans AS (SELECT m.oid AS lo_oid FROM pg_largeobject_metadata m " +
+                    "WHERE m.oid > ?::oid AND NOT EXISTS (SELECT 1 FROM file_contents c WHERE c.data = m.oid) " +
+                    "ORDER BY m.oid LIMIT ?) ";
+    private static final String UNLINK_SQL = ORPHANS_CTE +
+            "SELECT COUNT(*), COUNT(lo_unlink(lo_oid)), COALESCE(MAX(lo_oid)::bigint, 0) FROM orphans";
+    private static final String COUNT_SQL = ORPHANS_CTE +
+            "SELECT COUNT(*), 0, COALESCE(MAX(lo_oid)::bigint, 0) FROM orphans";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageProperties.LargeObjectGc properties;
+    private final ObjectProvider<ContentShards> contentShards;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastFound = new AtomicLong();
+    private final Counter unlinkedCounter;
+    private final Timer runTimer;
+
+    public LargeObjectCollector(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                StorageProperties storageProperties,
+                                ObjectProvider<ContentShards> contentShards,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = storageProperties.getLargeObjectGc();
+        this.contentShards = contentShards;
+        this.unlinkedCounter = Counter.builder("documents.storage.lob.unlinked")
+                .description("Удалено large object без ссылок")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("documents.storage.lob.gc")
+                .description("Время сборки large object без ссылок")
+                .register(meterRegistry);
+        Gauge.builder("documents.storage.lob.orphans", lastFound, AtomicLong::get)
+                .description("Large object без ссылок, найденные последней сборкой")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${documents.storage.large-object-gc.initial-delay:PT5M}",
+            fixedDelayString = "${documents.storage.large-object-gc.interval:PT6H}")
+    public void collectScheduled() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Large object collection is already running, skipping");
+            return;
+        }
+        try {
+            runTimer.record(() -> collect(properties.isDryRun()));
+        } catch (RuntimeException e) {
+            log.error("Large object collection failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public LargeObjectGcResultDto collectNow(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Сборка large object уже выполняется");
+        }
+        try {
+            return runTimer.record(() -> collect(dryRun));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private LargeObjectGcResultDto collect(boolean dryRun) {
+        Sweep total = sweep(jdbcTemplate, transactionTemplate, dryRun);
+        ContentShards shards = contentShards.getIfAvailable();
+        if (shards != null) {
+            for (ContentShard shard : shards.getShards()) {
+                Sweep sweep = sweep(shard.jdbcTemplate(), shard.transactionTemplate(), dryRun);
+                if (sweep.found() > 0) {
+                    log.info("Content shard {}: found {} orphaned large objects", shard.name(), sweep.found());
+                }
+                total = total.plus(sweep);
+            }
+        }
+        lastFound.set(total.found());
+        if (total.found() > 0) {
+            log.info("Large object collection{}: found {} orphaned objects, unlinked {}",
+                    dryRun ? " (dry run)" : "", total.found(), total.unlinked());
+        }
+        return LargeObjectGcResultDto.builder()
+                .dryRun(dryRun)
+                .found(total.found())
+                .unlinked(total.unlinked())
+                .complete(total.complete())
+                .build();
+    }
+
+    private Sweep sweep(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, boolean dryRun) {
+        long cursor = 0;
+        long found = 0;
+        long unlinked = 0;
+        while (found < properties.getMaxPerRun()) {
+            int limit = (int) Math.min(properties.getBatchSize(), properties.getMaxPerRun() - found);
+            long from = cursor;
+            Batch batch = transactionTemplate.execute(status -> collectBatch(jdbcTemplate, from, limit, dryRun));
+            if (batch == null) {
+                log.info("Large object collection is held by another instance, stopping");
+                break;
+            }
+            found += batch.found();
+            unlinked += batch.unlinked();
+            unlinkedCounter.increment(batch.unlinked());
+            if (batch.found() < limit) {
+                return new Sweep(found, unlinked, true);
+            }
+            cursor = batch.lastOid();
+            if (!pause()) {
+                break;
+            }
+        }
+        return new Sweep(found, unlinked, false);
+    }
+
+    private Batch collectBatch(JdbcTemplate jdbcTemplate, long cursor, int limit, boolean dryRun) {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+        return jdbcTemplate.queryForObject(dryRun ? COUNT_SQL : UNLINK_SQL,
+                (rs, rowNum) -> new Batch(rs.getInt(1), rs.getInt(2), rs.getLong(3)),
+                cursor, limit);
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPause().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Batch(int found, int unlinked, long lastOid) {
+    }
+
+    private record Sweep(long found, long unlinked, boolean complete) {
+        private Sweep plus(Sweep other) {
+            return new Sweep(found + other.found, unlinked + other.unlinked, complete && other.complete);
+        }
+    }
+}
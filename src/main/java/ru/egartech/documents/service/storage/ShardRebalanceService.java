@@ -0,0 +1,72 @@
+package ru.egartech.documents.service.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.egartech.documents.dto.ContentMigrationResultDto;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Переносит содержимое, которое после добавления базы в documents.storage.shards хеш относит
+ * к другой базе, порциями по возрастанию id. Сервис продолжает работать во время переноса:
+ * до удаления старой копии чтение обслуживает {@link ShardedContentStore}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ShardRebalanceService {
+    private final ContentShards contentShards;
+
+    /**
+     * Просматривает до batchSize содержимых базы shard с id больше after и переносит те,
+     * что относятся к другой базе. Копия удаляется со старой базы только после записи на новую;
+     * если содержимое удалили во время переноса, удаляется и новая копия.
+     */
+    public ContentMigrationResultDto rebalance(int shard, int batchSize, UUID after) {
+        List<ContentShard> shards = contentShards.getShards();
+        if (shard < 0 || shard >= shards.size()) {
+            throw new DocumentsException(ErrorType.CLIENT_ERROR, "Нет базы содержимого с номером " + shard);
+        }
+        ContentShard source = shards.get(shard);
+        List<UUID> contentIds = after == null
+                ? source.jdbcTemplate().queryForList("SELECT id FROM file_contents ORDER BY id LIMIT ?",
+                UUID.class, batchSize)
+                : source.jdbcTemplate().queryForList("SELECT id FROM file_contents WHERE id > ? ORDER BY id LIMIT ?",
+                UUID.class, after, batchSize);
+        int moved = 0;
+        List<UUID> failed = new ArrayList<>();
+        for (UUID contentId : contentIds) {
+            ContentShard target = contentShards.shardFor(contentId);
+            if (target == source) {
+                continue;
+            }
+            try {
+                if (!target.store().exists(contentId)) {
+                    try (InputStream in = source.store().read(contentId)) {
+                        target.store().write(contentId, in);
+                    }
+                }
+                if (source.store().exists(contentId)) {
+                    source.store().delete(contentId);
+                    moved++;
+                } else {
+                    target.store().delete(contentId);
+                }
+            } catch (Exception e) {
+                log.error("Failed to move content {} from {} to {}: {}",
+                        contentId, source.name(), target.name(), e.getMessage(), e);
+                failed.add(contentId);
+            }
+        }
+        log.info("Moved {} of {} contents from {}, {} failed", moved, contentIds.size(), source.name(), failed.size());
+        return ContentMigrationResultDto.builder()
+                .moved(moved)
+                .failed(failed)
+                .next(contentIds.size() < batchSize ? null : contentIds.get(contentIds.size() - 1))
+                .build();
+    }
+}
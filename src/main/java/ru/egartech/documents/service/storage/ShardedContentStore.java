@@ -0,0 +1,58 @@
+package ru.egartech.documents.service.storage;
+
+import lombok.RequiredArgsConstructor;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Распределяет содержимое по базам {@link ContentShards}. Каждая база пишет в собственной
+ * транзакции, поэтому удаление откладывается до фиксации транзакции основной базы.
+ * Пишет всегда на текущую базу содержимого, а читает и удаляет также там, где оно
+ * лежало до добавления баз ({@link ContentShards#candidatesFor}).
+ */
+@RequiredArgsConstructor
+public class ShardedContentStore implements ContentStore {
+    private final ContentShards contentShards;
+
+    @Override
+    public long write(UUID contentId, InputStream inputStream) throws IOException {
+        return contentShards.shardFor(contentId).store().write(contentId, inputStream);
+    }
+
+    @Override
+    public InputStream read(UUID contentId, long offset, long length) {
+        return storeFor(contentId).read(contentId, offset, length);
+    }
+
+    @Override
+    public long transferTo(UUID contentId, long offset, long length, WritableByteChannel target) throws IOException {
+        return storeFor(contentId).transferTo(contentId, offset, length, target);
+    }
+
+    @Override
+    public boolean exists(UUID contentId) {
+        return contentShards.candidatesFor(contentId).stream()
+                .anyMatch(shard -> shard.store().exists(contentId));
+    }
+
+    @Override
+    public void delete(UUID contentId) {
+        contentShards.candidatesFor(contentId).forEach(shard -> shard.store().delete(contentId));
+    }
+
+    private ContentStore storeFor(UUID contentId) {
+        List<ContentShard> candidates = contentShards.candidatesFor(contentId);
+        for (ContentShard shard : candidates) {
+            if (shard.store().exists(contentId)) {
+                return shard.store();
+            }
+        }
+        throw new DocumentsException(ErrorType.NOT_FOUND);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.egartech.documents.service.storage;
+
+import java.util.UUID;
+
+public record StoredContent(UUID contentId, long size, String checksum, ContentEncoding encoding) {
+}
@@ -0,0 +1,40 @@
+package ru.egartech.documents.utils;
+
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class ChecksumUtil {
+    private static final String ALGORITHM = "SHA-256";
+
+    private ChecksumUtil() {
+        throw new DocumentsException(ErrorType.COMMON_ERROR);
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new DocumentsException(ErrorType.COMMON_ERROR, e);
+        }
+    }
+
+    public static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest = newDigest();
+        try (DigestInputStream in = new DigestInputStream(inputStream, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+}
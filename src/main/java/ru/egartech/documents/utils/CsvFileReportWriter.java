@@ -0,0 +1,75 @@
+package ru.egartech.documents.utils;
+
+import ru.egartech.documents.entity.FileEntity;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+public class CsvFileReportWriter implements FileReportWriter {
+    private static final char BOM = '\uFEFF';
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final Writer writer;
+
+    public CsvFileReportWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try {
+            writer.write(BOM);
+            writeRow(HEADERS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(FileEntity file) throws IOException {
+        writeRow(new String[]{
+                String.valueOf(file.getId()),
+                file.getName(),
+                file.getContentType(),
+                file.getSize() != null ? String.valueOf(file.getSize()) : "",
+                file.getDescription(),
+                file.getLastModified() != null ? file.getLastModified().format(formatter) : "",
+                file.getChecksum()
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeRow(String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /*
+     * Экранирование по RFC 4180. Значения, начинающиеся с символов формул,
+     * предваряются апострофом, чтобы табличный редактор не исполнил имя файла как формулу.
+     */
+    private String escape(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
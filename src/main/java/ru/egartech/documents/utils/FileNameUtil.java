@@ -0,0 +1,21 @@
+package ru.egartech.documents.utils;
+
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.util.regex.Pattern;
+
+public class FileNameUtil {
+    private static final Pattern VALID_NAME = Pattern.compile("^[^<>:\"/\\\\|?*;]+$");
+
+    private FileNameUtil() {
+        throw new DocumentsException(ErrorType.COMMON_ERROR);
+    }
+
+    /**
+     * Проверяет, что имя файла не пустое и не содержит знаков < > : " / \ | ? * ;
+     */
+    public static boolean isValid(String fileName) {
+        return fileName != null && VALID_NAME.matcher(fileName).matches();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.egartech.documents.utils;
+
+import ru.egartech.documents.entity.FileEntity;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Пишет отчет по одной строке на файл, не накапливая строки в памяти.
+ * {@link #close()} дописывает отчет, но не закрывает выходной поток.
+ */
+public interface FileReportWriter extends Closeable {
+    String[] HEADERS = {"Идентификатор", "Имя", "Тип", "Размер (байт)", "Описание",
+            "Последнее обновление", "Контрольная сумма"};
+
+    void write(FileEntity file) throws IOException;
+}
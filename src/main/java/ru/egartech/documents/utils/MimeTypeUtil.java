@@ -5,9 +5,27 @@ import ru.egartech.documents.exceptions.ErrorType;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class MimeTypeUtil {
     private static final Map<String, String> mimeTypeMap = new HashMap<>();
+    private static final Set<String> compressedTypes = Set.of(
+            "JPEG Image", "PNG Image", "GIF Image", "WebP Image",
+            "MP4 Video", "Ogg Video", "WebM Video",
+            "MP4 Audio", "MPEG Audio", "Ogg Audio", "AAC Audio", "FLAC Audio",
+            "ZIP Archive", "GZip Compressed Archive", "7-zip Archive", "RAR Archive",
+            "BZip Archive", "BZip2 Archive", "Java Archive (JAR)", "EPUB Document",
+            "Microsoft Word Document 2007", "Microsoft Excel Spreadsheet 2007",
+            "Microsoft PowerPoint Presentation 2007", "OpenDocument Text Document",
+            "OpenDocument Spreadsheet", "OpenDocument Presentation",
+            "Web Open Font Format (WOFF)", "Web Open Font Format (WOFF2)");
+    private static final Set<String> compressibleTypes = Set.of(
+            "Text", "Comma-Separated Values (CSV)", "HTML Document", "XHTML", "XML",
+            "Extensible Markup Language (XML)", "JavaScript Object Notation (JSON)", "JavaScript",
+            "Cascading Style Sheets (CSS)", "YAML", "SOAP", "Scalable Vector Graphics (SVG)", "PostScript",
+            "Microsoft Word Document", "Microsoft Excel Spreadsheet", "Microsoft PowerPoint Presentation",
+            "Microsoft Visio Document", "AbiWord Document", "Bitmap Image (BMP)", "Tagged Image File Format (TIFF)",
+            "C Shell Script", "Bourne Shell Script", "PHP Script");
 
     static {
         mimeTypeMap.put("application/pdf", "PDF Document");
@@ -85,6 +103,8 @@ public class MimeTypeUtil {
         mimeTypeMap.put("application/x-zip-compressed", "ZIP Archive");
     }
 
+    private static final Set<String> knownTypes = Set.copyOf(mimeTypeMap.values());
+
     private MimeTypeUtil() {
         throw new DocumentsException(ErrorType.COMMON_ERROR);
     }
@@ -92,4 +112,28 @@ public class MimeTypeUtil {
     public static String getReadableMimeType(String mimeType) {
         return mimeTypeMap.getOrDefault(mimeType, mimeType);
     }
+
+    /**
+     * Проверяет, что читаемое имя типа получено из таблицы известных типов,
+     * а не оставлено исходным mime-типом.
+     */
+    public static boolean isKnown(String readableMimeType) {
+        return readableMimeType != null && knownTypes.contains(readableMimeType);
+    }
+
+    /**
+     * Проверяет, сжат ли уже формат (изображения, видео, архивы, OOXML/ODF-документы),
+     * то есть бесполезно ли сжимать его повторно. Принимает читаемое имя типа.
+     */
+    public static boolean isCompressed(String readableMimeType) {
+        return readableMimeType != null && compressedTypes.contains(readableMimeType);
+    }
+
+    /**
+     * Проверяет, хорошо ли сжимается формат: текст, разметка, несжатые изображения
+     * и двоичные форматы Office до 2007. Принимает читаемое имя типа.
+     */
+    public static boolean isCompressible(String readableMimeType) {
+        return readableMimeType != null && compressibleTypes.contains(readableMimeType);
+    }
 }
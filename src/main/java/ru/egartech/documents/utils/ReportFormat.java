@@ -0,0 +1,41 @@
+package ru.egartech.documents.utils;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+@Getter
+@RequiredArgsConstructor
+public enum ReportFormat {
+    DOCX("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("csv", "text/csv");
+
+    private final String extension;
+    private final String mimeType;
+
+    public static ReportFormat fromExtension(String extension) {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(extension))
+                .findFirst()
+                .orElseThrow(() -> new DocumentsException(ErrorType.CLIENT_ERROR,
+                        "Неизвестный формат отчета: " + extension));
+    }
+
+    /**
+     * Потоковый построчный писатель отчета. DOCX-отчет содержит только сводку
+     * и формируется {@link StatisticCreator}, поэтому построчной выгрузки не имеет.
+     */
+    public FileReportWriter newWriter(OutputStream outputStream) {
+        return switch (this) {
+            case XLSX -> new XlsxFileReportWriter(outputStream);
+            case CSV -> new CsvFileReportWriter(outputStream);
+            case DOCX -> throw new DocumentsException(ErrorType.CLIENT_ERROR,
+                    "Построчная выгрузка в формате docx не поддерживается");
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package ru.egartech.documents.utils;
+
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class SizeLimitInputStream extends FilterInputStream {
+    private final long maxSize;
+    private long count;
+
+    public SizeLimitInputStream(InputStream in, long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1) {
+            checkLimit(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = super.read(b, off, len);
+        if (result > 0) {
+            checkLimit(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        checkLimit(skipped);
+        return skipped;
+    }
+
+    private void checkLimit(long read) {
+        count += read;
+        if (count > maxSize) {
+            throw new DocumentsException(ErrorType.TOO_BIG);
+        }
+    }
+}
@@ -2,7 +2,8 @@ package ru.egartech.documents.utils;
 
 import org.apache.poi.xwpf.usermodel.*;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.*;
-import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.dto.ContentTypeStatisticDto;
+import ru.egartech.documents.dto.FileStatisticDto;
 import ru.egartech.documents.exceptions.DocumentsException;
 import ru.egartech.documents.exceptions.ErrorType;
 
@@ -12,25 +13,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class StatisticCreator {
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
-    public byte[] createStatistic(List<FileEntity> files, LocalDate periodStart, LocalDate periodEnd) {
+    public byte[] createStatistic(FileStatisticDto statistic) {
         XWPFDocument document = new XWPFDocument();
-        Map<String, Long> typesCounting = countFileTypes(files);
-        long totalFiles = files.size();
-        long totalSize = files.stream().mapToLong(FileEntity::getSize).sum();
-        LocalDateTime lastModified = files.stream()
-                .map(FileEntity::getLastModified)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
         addStyles(document);
-        addTitle(document, periodStart, periodEnd);
-        addSummary(document, totalFiles, totalSize, lastModified);
-        addTable(document, typesCounting);
+        addTitle(document, statistic.getPeriodStart(), statistic.getPeriodEnd());
+        addSummary(document, statistic.getTotalFiles(), statistic.getTotalSize(), statistic.getLastModified());
+        addTable(document, statistic.getTypes());
         return saveDocumentToByteArray(document);
     }
 
@@ -67,7 +59,7 @@ public class StatisticCreator {
         summaryRun.setFontSize(12);
     }
 
-    private void addTable(XWPFDocument document, Map<String, Long> typesCounting) {
+    private void addTable(XWPFDocument document, List<ContentTypeStatisticDto> types) {
         XWPFTable table = document.createTable();
         table.setWidth("100%");
         CTTblPr tblPr = table.getCTTbl().getTblPr();
@@ -76,10 +68,10 @@ public class StatisticCreator {
         XWPFTableRow headerRow = table.getRow(0);
         setHeaderCellStyle(headerRow.getCell(0)).setText("Тип файла");
         setHeaderCellStyle(headerRow.addNewTableCell()).setText("Количество файлов");
-        typesCounting.forEach((type, count) -> {
+        types.forEach(type -> {
             XWPFTableRow row = table.createRow();
-            row.getCell(0).setText(type);
-            row.getCell(1).setText(String.valueOf(count));
+            row.getCell(0).setText(type.getContentType());
+            row.getCell(1).setText(String.valueOf(type.getFiles()));
             setCellStyle(row);
         });
     }
@@ -119,11 +111,6 @@ public class StatisticCreator {
         }
     }
 
-    private Map<String, Long> countFileTypes(List<FileEntity> files) {
-        return files.stream()
-                .collect(Collectors.groupingBy(FileEntity::getContentType, Collectors.counting()));
-    }
-
     private String formatSize(long size) {
         if (size < 1024) {
             return size + " байт";
@@ -0,0 +1,209 @@
+package ru.egartech.documents.utils;
+
+import org.apache.poi.extractor.ExtractorFactory;
+import org.apache.poi.extractor.POITextExtractor;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.extractor.XSSFEventBasedExcelExtractor;
+import org.apache.xmlbeans.XmlException;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class TextExtractor {
+    private static final String WORD_TYPE = "Microsoft Word Document 2007";
+    private static final String EXCEL_TYPE = "Microsoft Excel Spreadsheet 2007";
+    private static final Set<String> OFFICE_TYPES = Set.of(
+            WORD_TYPE,
+            EXCEL_TYPE,
+            "Microsoft PowerPoint Presentation 2007");
+    private static final Set<String> PLAIN_TYPES = Set.of(
+            "Text",
+            "Comma-Separated Values (CSV)");
+    private static final String HTML_TYPE = "HTML Document";
+    private static final int HTML_MARKUP_FACTOR = 4;
+
+    private static final Pattern SCRIPT_OR_STYLE = Pattern.compile("(?is)<(script|style)[^>]*>.*?</\\1>");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private final long maxOfficeSize;
+
+    /**
+     * @param maxOfficeSize наибольший размер документа Office в байтах, из которого извлекается текст
+     */
+    public TextExtractor(long maxOfficeSize) {
+        this.maxOfficeSize = maxOfficeSize;
+    }
+
+    public static Set<String> getSupportedTypes() {
+        Set<String> types = new HashSet<>(OFFICE_TYPES);
+        types.addAll(PLAIN_TYPES);
+        types.add(HTML_TYPE);
+        return types;
+    }
+
+    public static boolean isSupported(String contentType) {
+        return OFFICE_TYPES.contains(contentType) || PLAIN_TYPES.contains(contentType) || HTML_TYPE.equals(contentType);
+    }
+
+    public String extract(InputStream inputStream, String contentType, int maxLength) throws IOException {
+        String text;
+        if (OFFICE_TYPES.contains(contentType)) {
+            text = extractOffice(inputStream, contentType, maxLength);
+        } else if (HTML_TYPE.equals(contentType)) {
+            String html = readText(inputStream, maxLength * HTML_MARKUP_FACTOR);
+            text = TAG.matcher(SCRIPT_OR_STYLE.matcher(html).replaceAll(" ")).replaceAll(" ");
+        } else {
+            text = readText(inputStream, maxLength);
+        }
+        text = WHITESPACE.matcher(text.replace('\u0000', ' ')).replaceAll(" ").trim();
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+
+    /*
+     * OOXML - это zip-архив: из файла POI читает его через ZipFile,
+     * а из потока вынужден держать в памяти все части документа.
+     * Word и Excel разбираются потоково, презентации - целиком, поэтому размер документа ограничен.
+     */
+    private String extractOffice(InputStream inputStream, String contentType, int maxLength) throws IOException {
+        Path temp = Files.createTempFile("extraction-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                if (copy(inputStream, out, maxOfficeSize) > maxOfficeSize) {
+                    throw new IOException("Document is larger than " + maxOfficeSize + " bytes");
+                }
+            }
+            if (WORD_TYPE.equals(contentType)) {
+                return extractWord(temp, maxLength);
+            }
+            if (EXCEL_TYPE.equals(contentType)) {
+                try (XSSFEventBasedExcelExtractor extractor =
+                             new XSSFEventBasedExcelExtractor(OPCPackage.open(temp.toFile(), PackageAccess.READ))) {
+                    return extractor.getText();
+                }
+            }
+            try (POITextExtractor extractor = ExtractorFactory.createExtractor(temp.toFile())) {
+                return extractor.getText();
+            }
+        } catch (OpenXML4JException | XmlException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Читает текст основной части документа Word SAX-разбором, не строя дерево документа.
+     */
+    private String extractWord(Path file, int maxLength)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            WordTextHandler handler = new WordTextHandler(maxLength);
+            for (PackagePart part : pkg.getPartsByRelationshipType(PackageRelationshipTypes.CORE_DOCUMENT)) {
+                XMLReader reader = XMLHelper.newXMLReader();
+                reader.setContentHandler(handler);
+                try (InputStream in = part.getInputStream()) {
+                    reader.parse(new InputSource(in));
+                } catch (TextLimitReachedException e) {
+                    // набрано maxLength символов, остаток документа не нужен
+                }
+            }
+            return handler.text.toString();
+        }
+    }
+
+    /**
+     * Копирует поток, пока не скопировано больше limit байт: больший документ дальше не читается.
+     */
+    private long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while (total <= limit && (read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    private String readText(InputStream inputStream, int maxLength) throws IOException {
+        Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        char[] buffer = new char[maxLength];
+        int total = 0;
+        int read;
+        while (total < maxLength && (read = reader.read(buffer, total, maxLength - total)) != -1) {
+            total += read;
+        }
+        return new String(buffer, 0, total);
+    }
+
+    private static class WordTextHandler extends DefaultHandler {
+        private final StringBuilder text = new StringBuilder();
+        private final int maxLength;
+        private boolean inText;
+
+        WordTextHandler(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (!WORD_NAMESPACE.equals(uri)) {
+                return;
+            }
+            switch (localName) {
+                case "t" -> inText = true;
+                case "tab", "br", "cr" -> text.append(' ');
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (!WORD_NAMESPACE.equals(uri)) {
+                return;
+            }
+            if ("t".equals(localName)) {
+                inText = false;
+            } else if ("p".equals(localName)) {
+                text.append('\n');
+            }
+            if (text.length() >= maxLength) {
+                throw new TextLimitReachedException();
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+    }
+
+    private static class TextLimitReachedException extends SAXException {
+    }
+}
@@ -0,0 +1,85 @@
+package ru.egartech.documents.utils;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import ru.egartech.documents.entity.FileEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * XLSX через SXSSF: в памяти держится только окно из {@value #WINDOW_SIZE} строк,
+ * остальные сбрасываются во временный сжатый файл. При превышении лимита строк
+ * листа выгрузка продолжается на следующем листе.
+ */
+public class XlsxFileReportWriter implements FileReportWriter {
+    private static final int WINDOW_SIZE = 100;
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final String SHEET_NAME = "Файлы";
+
+    private final OutputStream outputStream;
+    private final SXSSFWorkbook workbook;
+    private final CellStyle headerStyle;
+    private final CellStyle dateStyle;
+    private SXSSFSheet sheet;
+    private int rowIndex;
+
+    public XlsxFileReportWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+        this.workbook = new SXSSFWorkbook(WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        this.headerStyle = workbook.createCellStyle();
+        headerStyle.setFont(headerFont);
+        this.dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy hh:mm:ss"));
+        newSheet();
+    }
+
+    @Override
+    public void write(FileEntity file) {
+        if (rowIndex == MAX_ROWS) {
+            newSheet();
+        }
+        Row row = sheet.createRow(rowIndex++);
+        row.createCell(0).setCellValue(String.valueOf(file.getId()));
+        row.createCell(1).setCellValue(file.getName());
+        row.createCell(2).setCellValue(file.getContentType());
+        if (file.getSize() != null) {
+            row.createCell(3).setCellValue(file.getSize());
+        }
+        row.createCell(4).setCellValue(file.getDescription());
+        if (file.getLastModified() != null) {
+            row.createCell(5).setCellValue(file.getLastModified());
+            row.getCell(5).setCellStyle(dateStyle);
+        }
+        row.createCell(6).setCellValue(file.getChecksum());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void newSheet() {
+        int number = workbook.getNumberOfSheets();
+        sheet = workbook.createSheet(number == 0 ? SHEET_NAME : SHEET_NAME + " " + (number + 1));
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+            header.getCell(i).setCellStyle(headerStyle);
+        }
+        rowIndex = 1;
+    }
+}
@@ -0,0 +1,86 @@
+-- Схема на момент перехода на Flyway (ранее создавалась ddl-auto: update и schema.sql).
+-- Существующая база помечается baseline версии 0, и миграция выполняется и на ней:
+-- каждая команда идемпотентна и достраивает схему, созданную любой прежней версией.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE IF NOT EXISTS files (
+    id               uuid         NOT NULL PRIMARY KEY,
+    name             varchar(100) NOT NULL UNIQUE,
+    content_type     varchar(100) NOT NULL,
+    size             bigint       NOT NULL,
+    description      varchar(255),
+    last_modified    timestamp(6),
+    content_id       uuid,
+    checksum         varchar(64),
+    content_encoding varchar(16)
+);
+
+-- столбцы, которых нет в files, созданной ddl-auto до выделения содержимого
+ALTER TABLE files ADD COLUMN IF NOT EXISTS content_id uuid;
+ALTER TABLE files ADD COLUMN IF NOT EXISTS checksum varchar(64);
+ALTER TABLE files ADD COLUMN IF NOT EXISTS content_encoding varchar(16);
+
+CREATE TABLE IF NOT EXISTS file_contents (
+    id   uuid NOT NULL PRIMARY KEY,
+    data oid  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS content_references (
+    content_id  uuid        NOT NULL PRIMARY KEY,
+    checksum    varchar(64) NOT NULL UNIQUE,
+    size        bigint      NOT NULL,
+    stored_size bigint,
+    encoding    varchar(16),
+    ref_count   integer     NOT NULL
+);
+
+ALTER TABLE content_references ADD COLUMN IF NOT EXISTS stored_size bigint;
+ALTER TABLE content_references ADD COLUMN IF NOT EXISTS encoding varchar(16);
+
+CREATE TABLE IF NOT EXISTS file_statistics (
+    day               date         NOT NULL,
+    content_type      varchar(100) NOT NULL,
+    file_count        bigint       NOT NULL,
+    total_size        bigint       NOT NULL,
+    max_last_modified timestamp(6),
+    PRIMARY KEY (day, content_type)
+);
+
+CREATE TABLE IF NOT EXISTS file_texts (
+    file_id      uuid         NOT NULL PRIMARY KEY,
+    content_id   uuid         NOT NULL,
+    text         text         NOT NULL,
+    extracted_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id           uuid         NOT NULL PRIMARY KEY,
+    name         varchar(100) NOT NULL,
+    content_type varchar(255) NOT NULL,
+    description  varchar(255),
+    length       bigint       NOT NULL,
+    received     bigint       NOT NULL,
+    created_at   timestamp(6) NOT NULL,
+    updated_at   timestamp(6) NOT NULL
+);
+
+ALTER TABLE files ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(content_type, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS files_search_vector_idx ON files USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS files_name_trgm_idx ON files USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS files_content_type_trgm_idx ON files USING gin (lower(content_type) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS files_description_trgm_idx ON files USING gin (lower(description) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS files_last_modified_idx ON files (last_modified);
+
+ALTER TABLE file_texts ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(text, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS file_texts_search_vector_idx ON file_texts USING gin (search_vector);
+
+CREATE INDEX IF NOT EXISTS file_contents_data_idx ON file_contents (data);
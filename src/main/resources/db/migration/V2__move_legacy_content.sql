@@ -0,0 +1,20 @@
+-- Содержимое из старой колонки files.data переезжает в file_contents (раньше это делал
+-- LegacyContentMigration при старте). Large object не копируется, переносится только ссылка.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'files' AND column_name = 'data') THEN
+        INSERT INTO file_contents (id, data)
+        SELECT id, data FROM files WHERE content_id IS NULL AND data IS NOT NULL;
+        UPDATE files SET content_id = id WHERE content_id IS NULL AND data IS NOT NULL;
+        ALTER TABLE files DROP COLUMN data;
+    END IF;
+END
+$$;
+
+-- Строки сводной статистики для баз, где файлы появились раньше file_statistics.
+INSERT INTO file_statistics (day, content_type, file_count, total_size, max_last_modified)
+SELECT CAST(last_modified AS date), content_type, COUNT(*), COALESCE(SUM(size), 0), MAX(last_modified)
+FROM files
+WHERE last_modified IS NOT NULL AND NOT EXISTS (SELECT 1 FROM file_statistics)
+GROUP BY CAST(last_modified AS date), content_type;
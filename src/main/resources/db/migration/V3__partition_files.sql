@@ -0,0 +1,110 @@
+-- Таблица files секционируется по месяцам last_modified: запросы за период читают только
+-- свои секции, а срок хранения снимается отсоединением целой секции (FileRetentionService).
+-- Строки без last_modified и вне созданных секций попадают в files_default.
+
+-- Уникальный индекс секционированной таблицы обязан включать ключ секционирования,
+-- поэтому уникальность имени и id файла держит отдельная таблица file_names, которую ведет
+-- триггер files_sync_name. Ограничение files_id_last_modified_key ловит повтор id лишь
+-- внутри одного last_modified; в обход триггера (session_replication_role = replica,
+-- ATTACH PARTITION с чужими строками) уникальность id не проверяется.
+CREATE TABLE file_names (
+    name    varchar(100) NOT NULL PRIMARY KEY,
+    file_id uuid         NOT NULL UNIQUE
+);
+
+INSERT INTO file_names (name, file_id) SELECT name, id FROM files;
+
+ALTER TABLE files RENAME TO files_unpartitioned;
+ALTER INDEX IF EXISTS files_pkey RENAME TO files_unpartitioned_pkey;
+
+CREATE TABLE files (
+    id               uuid         NOT NULL,
+    name             varchar(100) NOT NULL,
+    content_type     varchar(100) NOT NULL,
+    size             bigint       NOT NULL,
+    description      varchar(255),
+    last_modified    timestamp(6),
+    content_id       uuid,
+    checksum         varchar(64),
+    content_encoding varchar(16),
+    search_vector    tsvector GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(content_type, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    ) STORED
+) PARTITION BY RANGE (last_modified);
+
+CREATE TABLE files_default PARTITION OF files DEFAULT;
+
+-- Создает секцию месяца, если ее еще нет. Строки этого месяца, успевшие попасть
+-- в files_default, переносятся в новую секцию.
+CREATE FUNCTION files_ensure_partition(month date) RETURNS boolean AS $$
+DECLARE
+    range_start    date := date_trunc('month', month);
+    range_end      date := date_trunc('month', month) + interval '1 month';
+    partition_name text := 'files_p' || to_char(date_trunc('month', month), 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM files_default WHERE last_modified >= range_start AND last_modified < range_end) THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF files FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, range_start, range_end);
+        RETURN true;
+    END IF;
+    -- перенос строк между секциями не меняет имен файлов
+    PERFORM set_config('documents.partition_maintenance', 'on', true);
+    ALTER TABLE files DETACH PARTITION files_default;
+    EXECUTE format('CREATE TABLE %I PARTITION OF files FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+    WITH moved AS (
+        DELETE FROM files_default WHERE last_modified >= range_start AND last_modified < range_end
+        RETURNING id, name, content_type, size, description, last_modified, content_id, checksum, content_encoding
+    )
+    INSERT INTO files (id, name, content_type, size, description, last_modified, content_id, checksum, content_encoding)
+    SELECT * FROM moved;
+    ALTER TABLE files ATTACH PARTITION files_default DEFAULT;
+    PERFORM set_config('documents.partition_maintenance', 'off', true);
+    RETURN true;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT files_ensure_partition(CAST(month AS date))
+FROM generate_series(
+        date_trunc('month', LEAST((SELECT MIN(last_modified) FROM files_unpartitioned), now())),
+        date_trunc('month', now()) + interval '3 months',
+        interval '1 month') AS month;
+
+INSERT INTO files (id, name, content_type, size, description, last_modified, content_id, checksum, content_encoding)
+SELECT id, name, content_type, size, description, last_modified, content_id, checksum, content_encoding
+FROM files_unpartitioned;
+
+DROP TABLE files_unpartitioned;
+
+ALTER TABLE files ADD CONSTRAINT files_id_last_modified_key UNIQUE (id, last_modified);
+CREATE INDEX files_name_idx ON files (name);
+-- покрывающий индекс для выборок и статистики за период: читается без обращения к строкам
+CREATE INDEX files_last_modified_idx ON files (last_modified, id) INCLUDE (content_type, size);
+CREATE INDEX files_search_vector_idx ON files USING gin (search_vector);
+CREATE INDEX files_name_trgm_idx ON files USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX files_content_type_trgm_idx ON files USING gin (lower(content_type) gin_trgm_ops);
+CREATE INDEX files_description_trgm_idx ON files USING gin (lower(description) gin_trgm_ops);
+
+CREATE FUNCTION files_sync_name() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('documents.partition_maintenance', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM file_names WHERE file_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'INSERT') THEN
+        INSERT INTO file_names (name, file_id) VALUES (NEW.name, NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER files_sync_name
+    AFTER INSERT OR DELETE OR UPDATE OF name ON files
+    FOR EACH ROW EXECUTE FUNCTION files_sync_name();
@@ -0,0 +1,3 @@
+-- Запрос, который сейчас пишет часть, завершает или отменяет загрузку. Сессия занимается
+-- условным UPDATE, поэтому одну сессию не пишут одновременно запросы разных экземпляров.
+ALTER TABLE upload_sessions ADD COLUMN writer uuid;
@@ -0,0 +1,7 @@
+-- Схема базы содержимого при documents.storage.type: sharded.
+CREATE TABLE IF NOT EXISTS file_contents (
+    id   uuid NOT NULL PRIMARY KEY,
+    data oid  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS file_contents_data_idx ON file_contents (data);
@@ -0,0 +1,152 @@
+package ru.egartech.documents;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Миграции Flyway: обновление базы, созданной ddl-auto до перехода на Flyway,
+ * и уникальность имени и id файла в секционированной таблице files.
+ */
+@SpringBootTest
+class SchemaMigrationTest {
+    private static final List<String> TABLES = List.of(
+            "files", "file_names", "file_contents", "content_references", "file_statistics", "file_texts",
+            "upload_sessions");
+    private static final String COLUMNS_SQL =
+            "SELECT table_name || '.' || column_name || ' ' || data_type || ' ' || is_nullable " +
+                    "FROM information_schema.columns " +
+                    "WHERE table_schema = current_schema() AND table_name = ANY (?) ORDER BY 1";
+    private static final String INSERT_FILE_SQL =
+            "INSERT INTO files (id, name, content_type, size, last_modified) VALUES (?, ?, 'Text', 1, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private FlywayProperties flywayProperties;
+
+    private final String token = "migration-" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<UUID> files = new ArrayList<>();
+
+    @AfterEach
+    void deleteFiles() {
+        for (UUID id : files) {
+            jdbcTemplate.update("DELETE FROM files WHERE id = ?", id);
+        }
+    }
+
+    @Test
+    void upgradesDatabaseCreatedBeforeFlyway() {
+        String database = "documents_" + token.replace('-', '_');
+        jdbcTemplate.execute("CREATE DATABASE " + database);
+        try {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    dataSourceProperties.getUrl().replaceFirst("/[^/?]+(\\?|$)", "/" + database + "$1"),
+                    dataSourceProperties.getUsername(), dataSourceProperties.getPassword());
+            JdbcTemplate legacy = new JdbcTemplate(dataSource);
+            // схема, которую строил ddl-auto: update до выделения содержимого из files
+            legacy.execute("CREATE TABLE files (id uuid NOT NULL, content_type varchar(100) NOT NULL, " +
+                    "data oid NOT NULL, description varchar(255), last_modified timestamp(6), " +
+                    "name varchar(100) NOT NULL UNIQUE, size bigint NOT NULL, PRIMARY KEY (id))");
+            UUID dated = UUID.randomUUID();
+            UUID undated = UUID.randomUUID();
+            legacy.update("INSERT INTO files (id, content_type, data, name, size, last_modified) " +
+                            "VALUES (?, 'Text', lo_from_bytea(0, ?), 'report.txt', 5, ?)",
+                    dated, "hello".getBytes(StandardCharsets.UTF_8), LocalDateTime.of(2024, 3, 15, 10, 0));
+            legacy.update("INSERT INTO files (id, content_type, data, name, size) " +
+                            "VALUES (?, 'Text', lo_from_bytea(0, ?), 'undated.txt', 3)",
+                    undated, "old".getBytes(StandardCharsets.UTF_8));
+
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(flywayProperties.getLocations().toArray(String[]::new))
+                    .baselineOnMigrate(flywayProperties.isBaselineOnMigrate())
+                    .baselineVersion(flywayProperties.getBaselineVersion())
+                    .load()
+                    .migrate();
+
+            assertThat(legacy.queryForList(COLUMNS_SQL, String.class, (Object) TABLES.toArray(String[]::new)))
+                    .containsExactlyElementsOf(jdbcTemplate.queryForList(COLUMNS_SQL, String.class,
+                            (Object) TABLES.toArray(String[]::new)));
+            assertThat(legacy.queryForList("SELECT id FROM files WHERE content_id = id", UUID.class))
+                    .containsExactlyInAnyOrder(dated, undated);
+            assertThat(legacy.queryForObject("SELECT lo_get(data) FROM file_contents WHERE id = ?",
+                    byte[].class, dated)).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+            assertThat(legacy.queryForObject("SELECT tableoid::regclass::text FROM files WHERE id = ?",
+                    String.class, dated)).isEqualTo("files_p202403");
+            assertThat(legacy.queryForObject("SELECT tableoid::regclass::text FROM files WHERE id = ?",
+                    String.class, undated)).isEqualTo("files_default");
+            assertThat(legacy.queryForList("SELECT name FROM file_names ORDER BY name", String.class))
+                    .containsExactly("report.txt", "undated.txt");
+            assertThat(legacy.queryForMap("SELECT CAST(day AS text) AS day, file_count, total_size FROM file_statistics"))
+                    .containsEntry("day", "2024-03-15")
+                    .containsEntry("file_count", 1L)
+                    .containsEntry("total_size", 5L);
+        } finally {
+            jdbcTemplate.execute("DROP DATABASE IF EXISTS " + database + " WITH (FORCE)");
+        }
+    }
+
+    @Test
+    void keepsFileIdAndNameUnique() {
+        UUID id = insertFile(UUID.randomUUID(), token + "-a", LocalDateTime.of(2024, 3, 15, 10, 0));
+
+        assertThat(fileNames(id)).containsExactly(token + "-a");
+        assertThatThrownBy(() -> insertFile(id, token + "-b", LocalDateTime.of(2024, 3, 15, 10, 0)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        // другой last_modified - другая секция, повтор id ловит только file_names
+        assertThatThrownBy(() -> insertFile(id, token + "-b", LocalDateTime.of(2024, 7, 1, 10, 0)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> insertFile(id, token + "-b", null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> insertFile(UUID.randomUUID(), token + "-a", null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void followsRenameMoveAndDelete() {
+        UUID id = insertFile(UUID.randomUUID(), token + "-a", LocalDateTime.of(2024, 3, 15, 10, 0));
+
+        jdbcTemplate.update("UPDATE files SET name = ? WHERE id = ?", token + "-b", id);
+        assertThat(fileNames(id)).containsExactly(token + "-b");
+
+        // перенос в другую секцию выполняется как удаление и вставка
+        jdbcTemplate.update("UPDATE files SET last_modified = NULL WHERE id = ?", id);
+        assertThat(fileNames(id)).containsExactly(token + "-b");
+
+        jdbcTemplate.update("DELETE FROM files WHERE id = ?", id);
+        assertThat(fileNames(id)).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT file_id FROM file_names WHERE name = ?",
+                UUID.class, token + "-b")).isEmpty();
+    }
+
+    private UUID insertFile(UUID id, String name, LocalDateTime lastModified) {
+        files.add(id);
+        jdbcTemplate.update(INSERT_FILE_SQL, id, name, lastModified);
+        return id;
+    }
+
+    private List<String> fileNames(UUID id) {
+        return jdbcTemplate.queryForList("SELECT name FROM file_names WHERE file_id = ?", String.class, id);
+    }
+}
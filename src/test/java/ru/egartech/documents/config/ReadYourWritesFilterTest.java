@@ -0,0 +1,129 @@
+package ru.egartech.documents.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import ru.egartech.documents.controller.FileRestController;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.service.BulkUploadService;
+import ru.egartech.documents.service.FileArchiveService;
+import ru.egartech.documents.service.FileChecksumService;
+import ru.egartech.documents.service.FileDownloadService;
+import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.service.report.ReportJobService;
+import ru.egartech.documents.service.storage.ContentEncoding;
+import ru.egartech.documents.service.storage.ContentService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Подсказки маршрутизации доходят до тела ответа, которое выполняет исполнитель mvc-async из {@link WebConfig}.
+ */
+class ReadYourWritesFilterTest {
+    private static final UUID FILE_ID = UUID.randomUUID();
+    private static final UUID CONTENT_ID = UUID.randomUUID();
+
+    private final List<String> replicaReads = new CopyOnWriteArrayList<>();
+    private final List<String> primaryReads = new CopyOnWriteArrayList<>();
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileRepository fileRepository = mock(FileRepository.class);
+        ContentService contentService = mock(ContentService.class);
+        FileDownloadService fileDownloadService = new FileDownloadService(fileRepository, contentService,
+                new FileChecksumService(fileRepository, contentService, mock(JdbcTemplate.class)));
+        FileRestController controller = new FileRestController(mock(FileService.class), fileDownloadService,
+                mock(BulkUploadService.class), mock(FileArchiveService.class), mock(ReportJobService.class),
+                new BaseResponseService());
+
+        FileEntity file = new FileEntity();
+        file.setId(FILE_ID);
+        file.setName("report.txt");
+        file.setContentType("Text");
+        file.setSize(1L);
+        file.setContentId(CONTENT_ID);
+        file.setChecksum("c0ffee");
+        file.setContentEncoding(ContentEncoding.IDENTITY.getValue());
+        file.setLastModified(LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(fileRepository.findById(FILE_ID)).thenReturn(Optional.of(file));
+        // ReplicaRoutingDataSource отдает соединение реплики ровно тогда, когда isReadOnly()
+        when(contentService.transferTo(eq(CONTENT_ID), any(), anyLong(), anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    (ReplicaRouting.isReadOnly() ? replicaReads : primaryReads).add(Thread.currentThread().getName());
+                    return 0L;
+                });
+
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(MvcConfig.class, WebConfig.class);
+        context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.registerSingleton("fileRestController", controller));
+        context.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(new ReadYourWritesFilter(Duration.ofSeconds(5)))
+                .build();
+    }
+
+    @AfterEach
+    void closeContext() {
+        context.close();
+    }
+
+    @Test
+    void downloadWithRecentWriteCookieNeverReadsReplica() throws Exception {
+        download(get("/api/files/{id}", FILE_ID).cookie(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "1")));
+
+        assertThat(replicaReads).isEmpty();
+        assertThat(primaryReads).singleElement().asString().startsWith("mvc-async-");
+    }
+
+    @Test
+    void downloadWithoutCookieReadsReplica() throws Exception {
+        download(get("/api/files/{id}", FILE_ID));
+
+        assertThat(primaryReads).isEmpty();
+        assertThat(replicaReads).singleElement().asString().startsWith("mvc-async-");
+    }
+
+    private void download(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class MvcConfig {
+    }
+}
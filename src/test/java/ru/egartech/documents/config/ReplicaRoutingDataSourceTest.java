@@ -0,0 +1,102 @@
+package ru.egartech.documents.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+    private DataSource primary;
+    private Connection connection;
+    private Statement statement;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(primary.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString(1)).thenReturn("0/16B3748");
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(), Duration.ofSeconds(5), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readsWalPositionOnceAfterCommitOfWritingTransaction() throws Exception {
+        beginTransaction(false);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+        verify(statement, never()).executeQuery(anyString());
+
+        commit();
+        verify(statement, times(1)).executeQuery(anyString());
+    }
+
+    @Test
+    void skipsWalPositionForReadOnlyTransaction() throws Exception {
+        beginTransaction(true);
+
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.primaryOnly()) {
+            dataSource.getConnection();
+        }
+        commit();
+
+        verify(statement, never()).executeQuery(anyString());
+    }
+
+    @Test
+    void skipsWalPositionOutsideTransaction() throws Exception {
+        dataSource.getConnection().close();
+
+        verify(statement, never()).executeQuery(anyString());
+    }
+
+    @Test
+    void delegatesExplicitCredentialsToPrimary() throws Exception {
+        when(primary.getConnection("reporter", "secret")).thenReturn(connection);
+
+        assertThat(dataSource.getConnection("reporter", "secret")).isSameAs(connection);
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
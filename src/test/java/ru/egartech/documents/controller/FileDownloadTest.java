@@ -0,0 +1,270 @@
+package ru.egartech.documents.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+import ru.egartech.documents.exceptions.baseresponse.BaseResponseService;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.service.BulkUploadService;
+import ru.egartech.documents.service.FileArchiveService;
+import ru.egartech.documents.service.FileChecksumService;
+import ru.egartech.documents.service.FileDownloadService;
+import ru.egartech.documents.service.FileService;
+import ru.egartech.documents.service.PreparedDownload;
+import ru.egartech.documents.service.report.ReportJobService;
+import ru.egartech.documents.service.storage.ContentEncoding;
+import ru.egartech.documents.service.storage.ContentService;
+import ru.egartech.documents.utils.ChecksumUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Согласование скачивания: диапазоны, условные запросы, Content-Encoding и чтение с основной базы,
+ * когда реплика еще не получила содержимое.
+ */
+class FileDownloadTest {
+    private static final UUID FILE_ID = UUID.randomUUID();
+    private static final UUID CONTENT_ID = UUID.randomUUID();
+    private static final byte[] CONTENT = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENCODED = "encoded".getBytes(StandardCharsets.US_ASCII);
+    private static final String CHECKSUM = "c0ffee";
+    private static final String ETAG = "\"" + CHECKSUM + "\"";
+
+    private FileRepository fileRepository;
+    private ContentService contentService;
+    private FileDownloadService fileDownloadService;
+    private FileEntity file;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileRepository = mock(FileRepository.class);
+        contentService = mock(ContentService.class);
+        fileDownloadService = new FileDownloadService(fileRepository, contentService,
+                new FileChecksumService(fileRepository, contentService, mock(JdbcTemplate.class)));
+        FileRestController controller = new FileRestController(mock(FileService.class), fileDownloadService,
+                mock(BulkUploadService.class), mock(FileArchiveService.class), mock(ReportJobService.class),
+                new BaseResponseService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        file = new FileEntity();
+        file.setId(FILE_ID);
+        file.setName("report.txt");
+        file.setContentType("Text");
+        file.setSize((long) CONTENT.length);
+        file.setContentId(CONTENT_ID);
+        file.setChecksum(CHECKSUM);
+        file.setContentEncoding(ContentEncoding.IDENTITY.getValue());
+        file.setLastModified(LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(fileRepository.findById(FILE_ID)).thenReturn(Optional.of(file));
+
+        when(contentService.transferTo(eq(CONTENT_ID), any(), anyLong(), anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    int offset = (int) (long) invocation.getArgument(3);
+                    int length = (int) (long) invocation.getArgument(4);
+                    WritableByteChannel target = invocation.getArgument(5);
+                    return (long) target.write(ByteBuffer.wrap(CONTENT, offset, length));
+                });
+        when(contentService.transferEncoded(eq(CONTENT_ID), any()))
+                .thenAnswer(invocation -> {
+                    WritableByteChannel target = invocation.getArgument(1);
+                    return (long) target.write(ByteBuffer.wrap(ENCODED));
+                });
+    }
+
+    @Test
+    void returnsWholeContent() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andExpect(header().doesNotExist(HttpHeaders.VARY))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void returnsRequestedRange() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/16"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("2345".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void returnsRangeWhenIfRangeMatches() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=-3")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 13-15/16"))
+                .andExpect(content().bytes("def".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+
+        verify(contentService, never()).transferTo(any(), any(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingETag() throws Exception {
+        mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(contentService, never()).transferTo(any(), any(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void returnsContentForDifferentETag() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void sendsDeflatedContentWithOwnETag() throws Exception {
+        file.setContentEncoding(ContentEncoding.DEFLATE.getValue());
+
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate;q=0.5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CHECKSUM + "-deflate\""))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().bytes(ENCODED));
+    }
+
+    @Test
+    void decodesDeflatedContentWhenClientRefusesDeflate() throws Exception {
+        file.setContentEncoding(ContentEncoding.DEFLATE.getValue());
+
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate;q=0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void deflateETagDoesNotMatchIdentityRepresentation() throws Exception {
+        file.setContentEncoding(ContentEncoding.DEFLATE.getValue());
+
+        MvcResult result = mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate")
+                        .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(ENCODED));
+    }
+
+    @Test
+    void storesMissingChecksumWithoutSavingEntity() throws Exception {
+        file.setChecksum(null);
+        when(contentService.read(CONTENT_ID, ContentEncoding.IDENTITY)).thenReturn(new ByteArrayInputStream(CONTENT));
+        String checksum = ChecksumUtil.sha256(new ByteArrayInputStream(CONTENT));
+
+        mockMvc.perform(get("/api/files/{id}", FILE_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + checksum + "\""))
+                .andExpect(status().isNotModified());
+
+        verify(fileRepository).setMissingChecksum(FILE_ID, CONTENT_ID, checksum);
+        verify(fileRepository, never()).save(any());
+    }
+
+    @Test
+    void opensContentOnPrimaryWhenReplicaHasNotReceivedIt() throws Exception {
+        when(contentService.readStored(CONTENT_ID, 0, CONTENT.length))
+                .thenThrow(new DocumentsException(ErrorType.NOT_FOUND))
+                .thenReturn(new ByteArrayInputStream(CONTENT));
+        PreparedDownload download = fileDownloadService.prepare(FILE_ID, new HttpHeaders());
+
+        try (InputStream in = fileDownloadService.open(download)) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        verify(contentService, times(2)).readStored(CONTENT_ID, 0, CONTENT.length);
+    }
+}
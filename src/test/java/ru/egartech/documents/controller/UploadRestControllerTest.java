@@ -0,0 +1,228 @@
+package ru.egartech.documents.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.egartech.documents.config.UploadProperties;
+import ru.egartech.documents.repository.FileRepository;
+import ru.egartech.documents.service.UploadSessionService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Загрузка частями: учет смещения, части не по порядку, занятость сессии другим запросом,
+ * завершение и очистка staging-каталога.
+ */
+@SpringBootTest
+class UploadRestControllerTest {
+    private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+    private static final byte[] CONTENT = "first part|second part".getBytes(StandardCharsets.UTF_8);
+    private static final int SPLIT = 11;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String name = "upload-" + UUID.randomUUID().toString().substring(0, 8) + ".txt";
+    private final List<UUID> sessions = new ArrayList<>();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        for (UUID id : sessions) {
+            jdbcTemplate.update("DELETE FROM upload_sessions WHERE id = ?", id);
+            Files.deleteIfExists(partPath(id));
+        }
+        fileRepository.findByName(name).ifPresent(fileRepository::delete);
+    }
+
+    @Test
+    void acceptsPartsAndReportsOffset() throws Exception {
+        UUID id = createSession();
+
+        appendChunk(id, 0, 0, SPLIT)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", String.valueOf(SPLIT)))
+                .andExpect(jsonPath("$.body.offset").value(SPLIT));
+
+        mockMvc.perform(head("/api/uploads/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", String.valueOf(SPLIT)))
+                .andExpect(header().string("Upload-Length", String.valueOf(CONTENT.length)));
+
+        appendChunk(id, SPLIT, SPLIT, CONTENT.length)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", String.valueOf(CONTENT.length)));
+        assertThat(Files.readAllBytes(partPath(id))).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void rejectsPartWithUnexpectedOffset() throws Exception {
+        UUID id = createSession();
+
+        appendChunk(id, SPLIT, SPLIT, CONTENT.length)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.error.code").value("UPLOAD_OFFSET_MISMATCH"));
+
+        appendChunk(id, 0, 0, SPLIT).andExpect(status().isOk());
+        // повтор уже принятой части
+        appendChunk(id, 0, 0, SPLIT)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error.code").value("UPLOAD_OFFSET_MISMATCH"));
+
+        assertThat(uploadSessionService.findById(id).getOffset()).isEqualTo(SPLIT);
+        assertThat(Files.size(partPath(id))).isEqualTo(SPLIT);
+    }
+
+    @Test
+    void rejectsPartWhileAnotherRequestHoldsSession() throws Exception {
+        UUID id = createSession();
+        // сессию занял запрос другого экземпляра
+        jdbcTemplate.update("UPDATE upload_sessions SET writer = ?, updated_at = ? WHERE id = ?",
+                UUID.randomUUID(), LocalDateTime.now(), id);
+
+        appendChunk(id, 0, 0, SPLIT)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error.code").value("UPLOAD_OFFSET_MISMATCH"));
+
+        // занявший запрос перестал продлевать сессию
+        jdbcTemplate.update("UPDATE upload_sessions SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minus(uploadProperties.getLockTimeout()).minusSeconds(1), id);
+        appendChunk(id, 0, 0, SPLIT).andExpect(status().isOk());
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT writer FROM upload_sessions WHERE id = ?", UUID.class, id)).isNull();
+    }
+
+    @Test
+    void rejectsPartStagedOnAnotherInstance() throws Exception {
+        UUID id = createSession();
+        Files.delete(partPath(id));
+
+        appendChunk(id, 0, 0, SPLIT)
+                .andExpect(status().is(421))
+                .andExpect(jsonPath("$.error.code").value("UPLOAD_STAGED_ELSEWHERE"));
+
+        assertThat(uploadSessionService.findById(id).getOffset()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT writer FROM upload_sessions WHERE id = ?", UUID.class, id)).isNull();
+    }
+
+    @Test
+    void completesUploadAndRemovesStagedPart() throws Exception {
+        UUID id = createSession();
+        appendChunk(id, 0, 0, SPLIT).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/uploads/{id}/complete", id))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error.code").value("UPLOAD_INCOMPLETE"));
+
+        appendChunk(id, SPLIT, SPLIT, CONTENT.length).andExpect(status().isOk());
+        mockMvc.perform(post("/api/uploads/{id}/complete", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.body.name").value(name));
+
+        assertThat(fileRepository.findByName(name)).hasValueSatisfying(file ->
+                assertThat(file.getSize()).isEqualTo(CONTENT.length));
+        assertThat(partPath(id)).doesNotExist();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM upload_sessions WHERE id = ?", Long.class, id)).isZero();
+    }
+
+    @Test
+    void removesExpiredSessionsAndOrphanParts() throws Exception {
+        UUID expired = createSession();
+        appendChunk(expired, 0, 0, SPLIT).andExpect(status().isOk());
+        UUID fresh = createSession();
+        Duration age = uploadProperties.getSessionTtl().plusHours(1);
+        jdbcTemplate.update("UPDATE upload_sessions SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minus(age), expired);
+        UUID orphan = UUID.randomUUID();
+        sessions.add(orphan);
+        Files.write(partPath(orphan), CONTENT);
+        Files.setLastModifiedTime(partPath(orphan), FileTime.from(Instant.now().minus(age)));
+
+        uploadSessionService.removeExpiredSessions();
+
+        assertThat(partPath(expired)).doesNotExist();
+        assertThat(partPath(orphan)).doesNotExist();
+        assertThat(partPath(fresh)).exists();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM upload_sessions WHERE id IN (?, ?)", Long.class, expired, fresh)).isEqualTo(1);
+    }
+
+    private UUID createSession() throws Exception {
+        String response = mockMvc.perform(post("/api/uploads")
+                        .param("name", name)
+                        .param("length", String.valueOf(CONTENT.length))
+                        .param("contentType", "Text"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode body = objectMapper.readTree(response).get("body");
+        UUID id = UUID.fromString(body.get("id").asText());
+        sessions.add(id);
+        return id;
+    }
+
+    private ResultActions appendChunk(UUID id, long offset, int from, int to)
+            throws Exception {
+        byte[] chunk = new byte[to - from];
+        System.arraycopy(CONTENT, from, chunk, 0, chunk.length);
+        return mockMvc.perform(patch("/api/uploads/{id}", id)
+                .header("Upload-Offset", offset)
+                .contentType(MediaType.parseMediaType(OFFSET_OCTET_STREAM))
+                .content(chunk));
+    }
+
+    private Path partPath(UUID id) {
+        return uploadProperties.getStagingDir().toAbsolutePath().normalize().resolve(id + ".part");
+    }
+}
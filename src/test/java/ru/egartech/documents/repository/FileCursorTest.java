@@ -0,0 +1,69 @@
+package ru.egartech.documents.repository;
+
+import org.junit.jupiter.api.Test;
+import ru.egartech.documents.entity.FileEntity;
+import ru.egartech.documents.exceptions.DocumentsException;
+import ru.egartech.documents.exceptions.ErrorType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileCursorTest {
+
+    @Test
+    void decodesEncodedCursor() {
+        FileCursor cursor = new FileCursor("отчет\n2024 + итог/копия", UUID.randomUUID());
+
+        String encoded = cursor.encode();
+
+        assertThat(encoded).doesNotContain("+", "/", "=");
+        assertThat(FileCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void takesValueAndIdFromFile() {
+        FileEntity file = new FileEntity();
+        file.setId(UUID.randomUUID());
+        file.setName("report.docx");
+        file.setSize(42L);
+        file.setLastModified(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_000_000));
+
+        assertThat(FileCursor.of(file, FileSortField.NAME)).isEqualTo(new FileCursor("report.docx", file.getId()));
+        assertThat(FileCursor.of(file, FileSortField.SIZE).value()).isEqualTo("42");
+        FileCursor byDate = FileCursor.decode(FileCursor.of(file, FileSortField.LAST_MODIFIED).encode());
+        assertThat(FileSortField.LAST_MODIFIED.parseValue(byDate.value())).isEqualTo(file.getLastModified());
+    }
+
+    @Test
+    void treatsMissingLastModifiedAsEpoch() {
+        FileEntity file = new FileEntity();
+        file.setId(UUID.randomUUID());
+
+        FileCursor cursor = FileCursor.of(file, FileSortField.LAST_MODIFIED);
+
+        assertThat(FileSortField.LAST_MODIFIED.parseValue(cursor.value()))
+                .isEqualTo(LocalDateTime.of(1970, 1, 1, 0, 0));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertClientError("not base64!");
+        assertClientError(encode("no separator"));
+        assertClientError(encode("not-a-uuid\nvalue"));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertClientError(String cursor) {
+        assertThatThrownBy(() -> FileCursor.decode(cursor))
+                .isInstanceOfSatisfying(DocumentsException.class,
+                        e -> assertThat(e.getType()).isEqualTo(ErrorType.CLIENT_ERROR));
+    }
+}
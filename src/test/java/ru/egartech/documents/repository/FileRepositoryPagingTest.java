@@ -0,0 +1,112 @@
+package ru.egartech.documents.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import ru.egartech.documents.entity.FileEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Постраничная выдача по курсору: страницы не пересекаются и не теряют записи при равных
+ * значениях поля сортировки и при пустой дате изменения.
+ */
+@SpringBootTest
+class FileRepositoryPagingTest {
+    private static final int ALL = 100;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    private final String token = "keyset" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<FileEntity> files = new ArrayList<>();
+
+    @AfterEach
+    void deleteFiles() {
+        fileRepository.deleteAll(files);
+    }
+
+    @Test
+    void pagesThroughEqualSortValues() {
+        for (int i = 0; i < 7; i++) {
+            save(token + "-" + i + ".pdf", 100L, LocalDateTime.of(2024, 3, 1, 10, 0));
+        }
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<UUID> expected = ids(fileRepository.findPage(token, FileSortField.SIZE, direction, null, ALL));
+
+            assertThat(expected).hasSize(7);
+            assertThat(pageThrough(FileSortField.SIZE, direction, 3)).isEqualTo(expected);
+            assertThat(pageThrough(FileSortField.SIZE, direction, 1)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void pagesThroughMissingLastModifiedAsEpoch() {
+        save(token + "-a.pdf", 1L, null);
+        save(token + "-b.pdf", 2L, null);
+        save(token + "-c.pdf", 3L, null);
+        save(token + "-d.pdf", 4L, LocalDateTime.of(1970, 1, 1, 0, 0));
+        save(token + "-e.pdf", 5L, LocalDateTime.of(2024, 3, 1, 10, 0));
+        save(token + "-f.pdf", 6L, LocalDateTime.of(2024, 3, 1, 10, 0));
+
+        List<FileEntity> ascending = fileRepository.findPage(token, FileSortField.LAST_MODIFIED,
+                Sort.Direction.ASC, null, ALL);
+        assertThat(ascending).hasSize(6);
+        assertThat(ascending.subList(0, 4)).allSatisfy(file -> assertThat(file.getSize()).isLessThanOrEqualTo(4));
+        assertThat(pageThrough(FileSortField.LAST_MODIFIED, Sort.Direction.ASC, 2)).isEqualTo(ids(ascending));
+
+        List<FileEntity> descending = fileRepository.findPage(token, FileSortField.LAST_MODIFIED,
+                Sort.Direction.DESC, null, ALL);
+        assertThat(descending.subList(0, 2)).allSatisfy(file -> assertThat(file.getLastModified()).isNotNull());
+        assertThat(pageThrough(FileSortField.LAST_MODIFIED, Sort.Direction.DESC, 2)).isEqualTo(ids(descending));
+        assertThat(pageThrough(FileSortField.LAST_MODIFIED, Sort.Direction.DESC, 4)).isEqualTo(ids(descending));
+    }
+
+    @Test
+    void pagesThroughNames() {
+        for (String suffix : List.of("b", "a", "c", "e", "d")) {
+            save(token + "-" + suffix + ".pdf", 1L, null);
+        }
+
+        List<UUID> expected = ids(fileRepository.findPage(token, FileSortField.NAME, Sort.Direction.ASC, null, ALL));
+
+        assertThat(pageThrough(FileSortField.NAME, Sort.Direction.ASC, 2)).isEqualTo(expected);
+        assertThat(fileRepository.findPage(token, FileSortField.NAME, Sort.Direction.ASC, null, ALL))
+                .extracting(FileEntity::getName)
+                .isSorted();
+    }
+
+    private List<UUID> pageThrough(FileSortField sortField, Sort.Direction direction, int limit) {
+        List<UUID> ids = new ArrayList<>();
+        FileCursor after = null;
+        while (true) {
+            List<FileEntity> page = fileRepository.findPage(token, sortField, direction, after, limit);
+            ids.addAll(ids(page));
+            if (page.size() < limit) {
+                return ids;
+            }
+            after = FileCursor.decode(FileCursor.of(page.get(page.size() - 1), sortField).encode());
+        }
+    }
+
+    private void save(String name, Long size, LocalDateTime lastModified) {
+        FileEntity file = new FileEntity();
+        file.setName(name);
+        file.setContentType("PDF Document");
+        file.setSize(size);
+        file.setLastModified(lastModified);
+        files.add(fileRepository.save(file));
+    }
+
+    private static List<UUID> ids(List<FileEntity> files) {
+        return files.stream().map(FileEntity::getId).toList();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.egartech.documents.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import ru.egartech.documents.entity.FileEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class FileRepositorySearchTest {
+    private static final int ALL = 1000;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    private final String token = "search" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<FileEntity> files = new ArrayList<>();
+
+    @BeforeEach
+    void saveFiles() {
+        save(token + "-50%.pdf");
+        save(token + "-500.pdf");
+        save(token + "_x.pdf");
+        save(token + "-ax.pdf");
+    }
+
+    @AfterEach
+    void deleteFiles() {
+        fileRepository.deleteAll(files);
+    }
+
+    @Test
+    void matchesLikeWildcardsLiterally() {
+        assertThat(search("%")).containsExactly(token + "-50%.pdf");
+        assertThat(search("_")).containsExactly(token + "_x.pdf");
+        assertThat(search("\\")).isEmpty();
+    }
+
+    @Test
+    void matchesPlainSubstring() {
+        assertThat(search(token)).hasSize(4);
+    }
+
+    @Test
+    void pagesThroughRelevanceResults() {
+        List<String> expected = search(token, FileSortField.RELEVANCE);
+        List<String> paged = new ArrayList<>();
+        FileCursor after = null;
+        do {
+            List<FileEntity> page = fileRepository.findPage(token, FileSortField.RELEVANCE, Sort.Direction.DESC,
+                    after, 1);
+            if (page.isEmpty()) {
+                break;
+            }
+            FileEntity last = page.get(0);
+            if (last.getName().startsWith(token)) {
+                paged.add(last.getName());
+            }
+            after = FileCursor.decode(new FileCursor(
+                    String.valueOf(fileRepository.relevanceOf(token, last.getId())), last.getId()).encode());
+        } while (paged.size() < expected.size());
+
+        assertThat(expected).hasSize(4);
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+
+    private List<String> search(String searchString) {
+        return search(searchString, FileSortField.NAME);
+    }
+
+    private List<String> search(String searchString, FileSortField sortField) {
+        return fileRepository.findPage(searchString, sortField, Sort.Direction.ASC, null, ALL).stream()
+                .map(FileEntity::getName)
+                .filter(name -> name.startsWith(token))
+                .toList();
+    }
+
+    private void save(String name) {
+        FileEntity file = new FileEntity();
+        file.setName(name);
+        file.setContentType("PDF Document");
+        file.setSize(1L);
+        files.add(fileRepository.save(file));
+    }
+}
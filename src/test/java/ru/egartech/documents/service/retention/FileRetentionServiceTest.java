@@ -0,0 +1,93 @@
+package ru.egartech.documents.service.retention;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.egartech.documents.config.RetentionProperties;
+import ru.egartech.documents.service.FileService;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Срок хранения считается от последнего изменения файла: правка переносит строку
+ * в секцию текущего месяца, и снятие старой секции ее не затрагивает.
+ */
+@SpringBootTest
+class FileRetentionServiceTest {
+    private static final String OLD_PARTITION = "files_p200101";
+    private static final LocalDateTime OLD_LAST_MODIFIED = LocalDateTime.of(2001, 1, 15, 10, 0);
+
+    @Autowired
+    private FileRetentionService fileRetentionService;
+
+    @Autowired
+    private RetentionProperties retentionProperties;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String token = "retention-" + UUID.randomUUID().toString().substring(0, 8);
+    private final UUID edited = UUID.randomUUID();
+    private final UUID untouched = UUID.randomUUID();
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM files WHERE id IN (?, ?)", edited, untouched);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + OLD_PARTITION);
+    }
+
+    @Test
+    void editMovesFileOutOfExpiredPartition() {
+        jdbcTemplate.queryForObject("SELECT files_ensure_partition(?)", Boolean.class, OLD_LAST_MODIFIED.toLocalDate());
+        insertFile(edited, token + "-edited.txt");
+        insertFile(untouched, token + "-untouched.txt");
+
+        fileService.changeName(edited, token + "-renamed", null);
+
+        assertThat(partitionOf(edited))
+                .isEqualTo("files_p" + YearMonth.now().format(DateTimeFormatter.ofPattern("yyyyMM")));
+        assertThat(partitionOf(untouched)).isEqualTo(OLD_PARTITION);
+
+        int retainMonths = retentionProperties.getRetainMonths();
+        RetentionProperties.Action action = retentionProperties.getAction();
+        retentionProperties.setRetainMonths(1);
+        retentionProperties.setAction(RetentionProperties.Action.DROP);
+        try {
+            fileRetentionService.maintain();
+        } finally {
+            retentionProperties.setRetainMonths(retainMonths);
+            retentionProperties.setAction(action);
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, OLD_PARTITION)).isNull();
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM file_names WHERE file_id IN (?, ?)",
+                String.class, edited, untouched)).containsExactly(token + "-renamed.txt");
+        assertThat(meterRegistry.get("documents.retention.row.deletes").timer().count()).isPositive();
+    }
+
+    private void insertFile(UUID id, String name) {
+        jdbcTemplate.update("INSERT INTO files (id, name, content_type, size, last_modified) VALUES (?, ?, 'Text', 1, ?)",
+                id, name, OLD_LAST_MODIFIED);
+    }
+
+    private String partitionOf(UUID id) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM files WHERE id = ?", String.class, id);
+        return partitions.isEmpty() ? null : partitions.get(0);
+    }
+}
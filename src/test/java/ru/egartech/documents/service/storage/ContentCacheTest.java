@@ -0,0 +1,110 @@
+package ru.egartech.documents.service.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.egartech.documents.config.CacheProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentCacheTest {
+    private static final byte[] CONTENT = "cached content".getBytes(StandardCharsets.US_ASCII);
+    private static final int THREADS = 8;
+
+    private final ContentCache contentCache = new ContentCache(new CacheProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void loadsContentOnceForConcurrentMisses() throws Exception {
+        UUID contentId = UUID.randomUUID();
+        AtomicInteger opened = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ContentCache.ContentLoader loader = () -> {
+            opened.incrementAndGet();
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return new ByteArrayInputStream(CONTENT);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<ByteBuffer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> contentCache.get(contentId, CONTENT.length, loader)));
+            assertThat(loaderStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            for (int i = 1; i < THREADS; i++) {
+                results.add(executor.submit(() -> contentCache.get(contentId, CONTENT.length, loader)));
+            }
+            releaseLoader.countDown();
+
+            for (Future<ByteBuffer> result : results) {
+                assertThat(bytes(result.get(10, TimeUnit.SECONDS))).isEqualTo(CONTENT);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(opened).hasValue(1);
+    }
+
+    @Test
+    void countsColdLoadAsSingleMiss() {
+        UUID contentId = UUID.randomUUID();
+
+        contentCache.get(contentId, CONTENT.length, () -> new ByteArrayInputStream(CONTENT));
+        contentCache.get(contentId, CONTENT.length, () -> new ByteArrayInputStream(CONTENT));
+
+        assertThat(contentCache.getStatistic().getMissCount()).isEqualTo(1);
+        assertThat(contentCache.getStatistic().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesLoadAfterFailure() {
+        UUID contentId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> contentCache.get(contentId, CONTENT.length, () -> {
+            throw new IOException("storage is unavailable");
+        })).isInstanceOf(UncheckedIOException.class);
+
+        ByteBuffer content = contentCache.get(contentId, CONTENT.length, () -> new ByteArrayInputStream(CONTENT));
+        assertThat(bytes(content)).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void skipsContentAboveEntrySize() {
+        CacheProperties.Content properties = new CacheProperties().getContent();
+        long size = properties.getMaxEntrySize().toBytes() + 1;
+
+        assertThat(contentCache.get(UUID.randomUUID(), size, () -> new ByteArrayInputStream(CONTENT))).isNull();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("Loader was not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
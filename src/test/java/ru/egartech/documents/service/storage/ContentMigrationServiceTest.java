@@ -0,0 +1,61 @@
+package ru.egartech.documents.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.egartech.documents.dto.ContentMigrationResultDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentMigrationServiceTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DatabaseContentStore databaseContentStore = mock(DatabaseContentStore.class);
+    private final ContentStore targetContentStore = mock(ContentStore.class);
+    private final ContentMigrationService migrationService =
+            new ContentMigrationService(jdbcTemplate, databaseContentStore, targetContentStore);
+
+    @Test
+    void reportsFailedContentAndContinuesAfterIt() throws IOException {
+        UUID broken = new UUID(0, 1);
+        UUID healthy = new UUID(0, 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(2)))
+                .thenReturn(List.of(broken, healthy));
+        when(databaseContentStore.read(any())).thenAnswer(invocation -> new ByteArrayInputStream(new byte[]{1}));
+        when(databaseContentStore.exists(healthy)).thenReturn(true);
+        when(targetContentStore.write(eq(broken), any())).thenThrow(new UncheckedIOException(new IOException("disk full")));
+
+        ContentMigrationResultDto result = migrationService.migrate(2, null);
+
+        assertThat(result.getMoved()).isEqualTo(1);
+        assertThat(result.getFailed()).containsExactly(broken);
+        assertThat(result.getNext()).isEqualTo(healthy);
+        verify(databaseContentStore, never()).delete(broken);
+        verify(databaseContentStore).delete(healthy);
+    }
+
+    @Test
+    void pagesFromCursorAndStopsOnShortBatch() {
+        UUID after = new UUID(0, 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(after), eq(2))).thenReturn(List.of());
+
+        ContentMigrationResultDto result = migrationService.migrate(2, after);
+
+        assertThat(result.getMoved()).isZero();
+        assertThat(result.getFailed()).isEmpty();
+        assertThat(result.getNext()).isNull();
+        verify(jdbcTemplate).queryForList("SELECT id FROM file_contents WHERE id > ? ORDER BY id LIMIT ?",
+                UUID.class, after, 2);
+    }
+}
@@ -0,0 +1,141 @@
+package ru.egartech.documents.service.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Дедупликация содержимого и счетчик ссылок content_references.
+ */
+@SpringBootTest
+class ContentServiceTest {
+    private static final String DETACHED_TABLE = "files_p190001";
+
+    @Autowired
+    private ContentService contentService;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void dropDetachedTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + DETACHED_TABLE);
+    }
+
+    @Test
+    void storesDuplicateOnceAndCountsReferences() throws IOException {
+        byte[] content = uniqueContent();
+        long contentsBefore = countContents();
+
+        StoredContent first = store(content);
+        StoredContent second = store(content);
+
+        assertThat(second.contentId()).isEqualTo(first.contentId());
+        assertThat(second.checksum()).isEqualTo(first.checksum());
+        assertThat(refCount(first.contentId())).isEqualTo(2);
+        // копия, записанная вторым сохранением, удалена
+        assertThat(countContents()).isEqualTo(contentsBefore + 1);
+        assertThat(readAll(first.contentId())).isEqualTo(content);
+    }
+
+    @Test
+    void deletesContentOnlyWhenLastReferenceIsReleased() throws IOException {
+        byte[] content = uniqueContent();
+        UUID contentId = store(content).contentId();
+        store(content);
+
+        contentService.release(contentId);
+
+        assertThat(refCount(contentId)).isEqualTo(1);
+        assertThat(contentStore.exists(contentId)).isTrue();
+
+        contentService.release(contentId);
+
+        assertThat(refCount(contentId)).isNull();
+        assertThat(contentStore.exists(contentId)).isFalse();
+    }
+
+    @Test
+    void deletesContentWithoutReferenceRow() throws IOException {
+        UUID contentId = UUID.randomUUID();
+        contentStore.write(contentId, new ByteArrayInputStream(uniqueContent()));
+
+        contentService.release(contentId);
+
+        assertThat(contentStore.exists(contentId)).isFalse();
+    }
+
+    @Test
+    void releasesAllReferencesOfDetachedTable() throws IOException {
+        byte[] shared = uniqueContent();
+        UUID sharedId = store(shared).contentId();
+        store(shared);
+        store(shared);
+        UUID singleId = store(uniqueContent()).contentId();
+        UUID legacyId = UUID.randomUUID();
+        contentStore.write(legacyId, new ByteArrayInputStream(uniqueContent()));
+
+        jdbcTemplate.execute("CREATE TABLE " + DETACHED_TABLE + " (id uuid, content_id uuid)");
+        for (UUID contentId : List.of(sharedId, sharedId, singleId, legacyId)) {
+            jdbcTemplate.update("INSERT INTO " + DETACHED_TABLE + " (id, content_id) VALUES (?, ?)",
+                    UUID.randomUUID(), contentId);
+        }
+
+        int released = contentService.releaseAll(DETACHED_TABLE);
+
+        assertThat(released).isEqualTo(2);
+        assertThat(refCount(sharedId)).isEqualTo(1);
+        assertThat(contentStore.exists(sharedId)).isTrue();
+        assertThat(refCount(singleId)).isNull();
+        assertThat(contentStore.exists(singleId)).isFalse();
+        assertThat(contentStore.exists(legacyId)).isFalse();
+    }
+
+    @Test
+    void rejectsTableOtherThanFilesPartition() {
+        assertThatThrownBy(() -> contentService.releaseAll("files_p202401; DROP TABLE files"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> contentService.releaseAll("content_references"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private StoredContent store(byte[] content) throws IOException {
+        return contentService.store(new ByteArrayInputStream(content), "PDF Document");
+    }
+
+    private byte[] readAll(UUID contentId) throws IOException {
+        try (InputStream in = contentService.read(contentId)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private Integer refCount(UUID contentId) {
+        List<Integer> refCounts = jdbcTemplate.queryForList(
+                "SELECT ref_count FROM content_references WHERE content_id = ?", Integer.class, contentId);
+        return refCounts.isEmpty() ? null : refCounts.get(0);
+    }
+
+    private long countContents() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM file_contents", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static byte[] uniqueContent() {
+        return ("content " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.egartech.documents.service.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.egartech.documents.config.CacheProperties;
+import ru.egartech.documents.service.monitoring.DocumentsMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Передача диапазонов из кэша содержимого.
+ */
+class ContentServiceTransferTest {
+    private static final UUID CONTENT_ID = UUID.randomUUID();
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private ContentService contentService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ContentStore contentStore = mock(ContentStore.class);
+        when(contentStore.read(CONTENT_ID)).thenAnswer(invocation -> new ByteArrayInputStream(CONTENT));
+        contentService = new ContentService(contentStore, new ContentCache(new CacheProperties(), meterRegistry),
+                new DocumentsMetrics(meterRegistry), mock(JdbcTemplate.class), mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void transfersRangeFromCache() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long transferred = contentService.transferTo(CONTENT_ID, ContentEncoding.IDENTITY, CONTENT.length, 2, 4,
+                Channels.newChannel(out));
+
+        assertThat(transferred).isEqualTo(4);
+        assertThat(out.toString(StandardCharsets.US_ASCII)).isEqualTo("2345");
+    }
+
+    @Test
+    void transfersOnlyCachedBytesWhenContentIsShorterThanSize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long size = CONTENT.length + 5;
+
+        long transferred = contentService.transferTo(CONTENT_ID, ContentEncoding.IDENTITY, size, 6, 8,
+                Channels.newChannel(out));
+
+        assertThat(transferred).isEqualTo(4);
+        assertThat(out.toString(StandardCharsets.US_ASCII)).isEqualTo("6789");
+    }
+
+    @Test
+    void transfersNothingPastCachedBytes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long size = CONTENT.length + 5;
+
+        long transferred = contentService.transferTo(CONTENT_ID, ContentEncoding.IDENTITY, size, 12, 3,
+                Channels.newChannel(out));
+
+        assertThat(transferred).isZero();
+        assertThat(out.size()).isZero();
+    }
+}
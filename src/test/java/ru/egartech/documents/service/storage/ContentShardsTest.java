@@ -0,0 +1,100 @@
+package ru.egartech.documents.service.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentShardsTest {
+    private static final int KEYS = 100_000;
+
+    /**
+     * Значения эталонной реализации (беззнаковый 64-битный ключ).
+     */
+    @Test
+    void matchesReferenceVectors() {
+        assertThat(ContentShards.jumpHash(1, 1)).isZero();
+        assertThat(ContentShards.jumpHash(42, 57)).isEqualTo(43);
+        assertThat(ContentShards.jumpHash(0xDEAD10CCL, 1)).isZero();
+        assertThat(ContentShards.jumpHash(0xDEAD10CCL, 666)).isEqualTo(361);
+        assertThat(ContentShards.jumpHash(256, 1024)).isEqualTo(520);
+        assertThat(ContentShards.jumpHash(0xFFFFFFFFFFFFFFFFL, 100)).isEqualTo(92);
+        assertThat(ContentShards.jumpHash(0x8000000000000000L, 1000)).isEqualTo(453);
+    }
+
+    @Test
+    void movesOnlyKeysOfNewShardWhenShardIsAdded() {
+        long[] keys = new Random(24).longs(KEYS).toArray();
+        for (int buckets = 1; buckets < 10; buckets++) {
+            int added = buckets;
+            int moved = 0;
+            for (long key : keys) {
+                int before = ContentShards.jumpHash(key, buckets);
+                int after = ContentShards.jumpHash(key, buckets + 1);
+                if (before != after) {
+                    // ключ переезжает только на добавленную базу
+                    assertThat(after).isEqualTo(added);
+                    moved++;
+                }
+            }
+            double expected = (double) KEYS / (buckets + 1);
+            assertThat((double) moved).isBetween(expected * 0.95, expected * 1.05);
+        }
+    }
+
+    @Test
+    void spreadsKeysEvenly() {
+        int buckets = 8;
+        int[] counts = new int[buckets];
+        new Random(8).longs(KEYS).forEach(key -> counts[ContentShards.jumpHash(key, buckets)]++);
+
+        double expected = (double) KEYS / buckets;
+        assertThat(IntStream.of(counts).boxed().toList())
+                .allSatisfy(count -> assertThat((double) count).isBetween(expected * 0.95, expected * 1.05));
+    }
+
+    @Test
+    void choosesSameShardForSameContent() {
+        List<ContentShard> shards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            shards.add(new ContentShard("shard-" + i, null, null, null, null));
+        }
+        ContentShards contentShards = new ContentShards(shards);
+        UUID contentId = UUID.randomUUID();
+
+        assertThat(contentShards.shardFor(contentId)).isSameAs(contentShards.shardFor(contentId));
+        assertThat(contentShards.shardFor(contentId).name()).isEqualTo("shard-" + ContentShards.jumpHash(
+                contentId.getMostSignificantBits() ^ contentId.getLeastSignificantBits(), 4));
+    }
+
+    @Test
+    void listsShardsOfEarlierLayoutsAfterCurrentShard() {
+        List<ContentShard> shards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            shards.add(new ContentShard("shard-" + i, null, null, null, null));
+        }
+        ContentShards contentShards = new ContentShards(shards);
+        for (int i = 0; i < 1000; i++) {
+            UUID contentId = UUID.randomUUID();
+            long key = contentId.getMostSignificantBits() ^ contentId.getLeastSignificantBits();
+            List<ContentShard> candidates = contentShards.candidatesFor(contentId);
+
+            assertThat(candidates.get(0)).isSameAs(contentShards.shardFor(contentId));
+            assertThat(candidates).doesNotHaveDuplicates();
+            for (int buckets = 1; buckets <= 4; buckets++) {
+                assertThat(candidates).contains(shards.get(ContentShards.jumpHash(key, buckets)));
+            }
+        }
+    }
+
+    @Test
+    void rejectsEmptyShardList() {
+        assertThatThrownBy(() -> new ContentShards(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.egartech.documents.service.storage;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.egartech.documents.dto.ContentMigrationResultDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Добавление базы содержимого: чтение до переноса и перенос содержимого на новую базу.
+ */
+@SpringBootTest
+class ShardedContentStoreTest {
+    private static final int CONTENTS = 30;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    private final String token = UUID.randomUUID().toString().substring(0, 8);
+    private final List<String> databases = new ArrayList<>();
+
+    @AfterEach
+    void dropDatabases() {
+        for (String database : databases) {
+            jdbcTemplate.execute("DROP DATABASE IF EXISTS " + database + " WITH (FORCE)");
+        }
+    }
+
+    @Test
+    void readsAndRebalancesContentAfterShardIsAdded() throws Exception {
+        List<ContentShard> shards = List.of(createShard(0), createShard(1), createShard(2));
+        ShardedContentStore before = new ShardedContentStore(new ContentShards(shards.subList(0, 2)));
+        List<UUID> contentIds = new ArrayList<>();
+        for (int i = 0; i < CONTENTS; i++) {
+            UUID contentId = UUID.randomUUID();
+            before.write(contentId, new ByteArrayInputStream(content(contentId)));
+            contentIds.add(contentId);
+        }
+
+        ContentShards contentShards = new ContentShards(shards);
+        ShardedContentStore after = new ShardedContentStore(contentShards);
+        List<UUID> moving = contentIds.stream()
+                .filter(contentId -> contentShards.shardFor(contentId) == shards.get(2))
+                .toList();
+        assertThat(moving).isNotEmpty();
+        for (UUID contentId : contentIds) {
+            assertThat(after.exists(contentId)).isTrue();
+            try (InputStream in = after.read(contentId)) {
+                assertThat(in.readAllBytes()).isEqualTo(content(contentId));
+            }
+        }
+
+        ShardRebalanceService rebalanceService = new ShardRebalanceService(contentShards);
+        int moved = 0;
+        for (int shard = 0; shard < 2; shard++) {
+            ContentMigrationResultDto result = rebalanceService.rebalance(shard, CONTENTS, null);
+            assertThat(result.getFailed()).isEmpty();
+            assertThat(result.getNext()).isNull();
+            moved += result.getMoved();
+        }
+
+        assertThat(moved).isEqualTo(moving.size());
+        assertThat(shards.get(2).jdbcTemplate().queryForList("SELECT id FROM file_contents", UUID.class))
+                .containsExactlyInAnyOrderElementsOf(moving);
+        for (UUID contentId : contentIds) {
+            assertThat(contentShards.candidatesFor(contentId).stream()
+                    .filter(shard -> shard.store().exists(contentId)))
+                    .containsExactly(contentShards.shardFor(contentId));
+            try (InputStream in = after.read(contentId)) {
+                assertThat(in.readAllBytes()).isEqualTo(content(contentId));
+            }
+        }
+    }
+
+    private ContentShard createShard(int index) {
+        String database = "documents_shard_" + token + "_" + index;
+        jdbcTemplate.execute("CREATE DATABASE " + database);
+        databases.add(database);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                dataSourceProperties.getUrl().replaceFirst("/[^/?]+(\\?|$)", "/" + database + "$1"),
+                dataSourceProperties.getUsername(), dataSourceProperties.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/shard").load().migrate();
+        JdbcTemplate shardTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        return new ContentShard("shard-" + index, null, shardTemplate, new TransactionTemplate(transactionManager),
+                new DatabaseContentStore(shardTemplate, transactionManager));
+    }
+
+    private static byte[] content(UUID contentId) {
+        return contentId.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
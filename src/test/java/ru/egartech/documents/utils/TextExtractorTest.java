@@ -0,0 +1,69 @@
+package ru.egartech.documents.utils;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextExtractorTest {
+    private static final String WORD_TYPE = "Microsoft Word Document 2007";
+    private static final String EXCEL_TYPE = "Microsoft Excel Spreadsheet 2007";
+
+    private final TextExtractor textExtractor = new TextExtractor(1024 * 1024);
+
+    @Test
+    void extractsWordParagraphs() throws IOException {
+        byte[] docx = word("Первый абзац", "второй абзац");
+
+        assertThat(textExtractor.extract(new ByteArrayInputStream(docx), WORD_TYPE, 1000))
+                .isEqualTo("Первый абзац второй абзац");
+    }
+
+    @Test
+    void stopsReadingWordAtMaxLength() throws IOException {
+        byte[] docx = word("0123456789", "abcdefghij", "klmnopqrst");
+
+        assertThat(textExtractor.extract(new ByteArrayInputStream(docx), WORD_TYPE, 12))
+                .isEqualTo("0123456789 a");
+    }
+
+    @Test
+    void extractsExcelCells() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            var row = workbook.createSheet("Отчет").createRow(0);
+            row.createCell(0).setCellValue("итого");
+            row.createCell(1).setCellValue(42);
+            workbook.write(out);
+        }
+
+        assertThat(textExtractor.extract(new ByteArrayInputStream(out.toByteArray()), EXCEL_TYPE, 1000))
+                .contains("Отчет", "итого", "42");
+    }
+
+    @Test
+    void rejectsOfficeDocumentAboveSizeLimit() throws IOException {
+        byte[] docx = word("текст");
+        TextExtractor limited = new TextExtractor(docx.length - 1);
+
+        assertThatThrownBy(() -> limited.extract(new ByteArrayInputStream(docx), WORD_TYPE, 1000))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] word(String... paragraphs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XWPFDocument document = new XWPFDocument()) {
+            for (String paragraph : paragraphs) {
+                document.createParagraph().createRun().setText(paragraph);
+            }
+            document.write(out);
+        }
+        return out.toByteArray();
+    }
+}